@@ -2,20 +2,25 @@ package com.botmaker;
 
 import com.botmaker.config.ApplicationConfig;
 import com.botmaker.core.BodyBlock;
+import com.botmaker.core.CodeBlock;
 import com.botmaker.core.StatementBlock;
 import com.botmaker.di.DependencyContainer;
 import com.botmaker.events.CoreApplicationEvents;
 import com.botmaker.events.EventBus;
 import com.botmaker.parser.AstRewriter;
+import com.botmaker.parser.BindingResolver;
 import com.botmaker.parser.BlockFactory;
+import com.botmaker.parser.ParseCache;
+import com.botmaker.parser.ParserEnvironment;
 import com.botmaker.project.ProjectConfig;
 import com.botmaker.runtime.CodeExecutionService;
+import com.botmaker.runtime.OutputSpool;
 import com.botmaker.services.*;
 import com.botmaker.state.ApplicationState;
 import com.botmaker.ui.BlockDragAndDropManager;
+import com.botmaker.ui.FrameScheduler;
 import com.botmaker.ui.ProjectSelectionScreen;
 import com.botmaker.ui.UIManager;
-import com.botmaker.util.BlockLookupHelper;
 import com.botmaker.validation.DiagnosticsManager;
 import javafx.application.Application;
 import javafx.application.Platform;
@@ -96,6 +101,7 @@ public class Main extends Application {
                             languageServerService.shutdown();
                             System.out.println("Language Server shut down successfully.");
                         }
+                        container.resolve(CodeExecutionService.class).shutdown();
                     } catch (Exception ex) {
                         System.err.println("Error during shutdown: " + ex.getMessage());
                     } finally {
@@ -130,9 +136,19 @@ public class Main extends Application {
     private void setupDependencies(ApplicationConfig config, Stage primaryStage) {
         container.registerSingleton(ApplicationConfig.class, config);
         container.registerSingleton(ApplicationState.class, new ApplicationState());
+        container.registerSingleton(FrameScheduler.class, new FrameScheduler(config.isEnableEventLogging()));
         container.registerSingleton(EventBus.class, new EventBus(config.isEnableEventLogging()));
-
-        container.registerSingleton(BlockFactory.class, new BlockFactory());
+        container.registerSingleton(OutputSpool.class, new OutputSpool());
+        container.resolve(EventBus.class).setFxExecutor(container.resolve(FrameScheduler.class));
+
+        ParserEnvironment parserEnvironment = new ParserEnvironment();
+        parserEnvironment.warmUpAsync();
+        container.registerSingleton(ParserEnvironment.class, parserEnvironment);
+        container.registerSingleton(ParseCache.class, new ParseCache(config.isEnableEventLogging()));
+        container.registerSingleton(BlockFactory.class,
+                new BlockFactory(container.resolve(ParserEnvironment.class), container.resolve(ParseCache.class)));
+        container.registerSingleton(BindingResolver.class,
+                new BindingResolver(container.resolve(ParserEnvironment.class), container.resolve(ParseCache.class)));
         container.registerSingleton(AstRewriter.class, new AstRewriter());
         container.registerSingleton(
                 com.botmaker.validation.DiagnosticsManager.class,
@@ -157,7 +173,7 @@ public class Main extends Application {
         container.registerLazySingleton(CodeExecutionService.class, () -> {
             EventBus eventBus = container.resolve(EventBus.class);
             return new CodeExecutionService(
-                    text -> eventBus.publish(new CoreApplicationEvents.OutputAppendedEvent(text)),
+                    container.resolve(OutputSpool.class),
                     () -> eventBus.publish(new CoreApplicationEvents.OutputClearedEvent()),
                     text -> eventBus.publish(new CoreApplicationEvents.OutputSetEvent(text)),
                     msg -> eventBus.publish(new CoreApplicationEvents.StatusMessageEvent(msg)),
@@ -172,6 +188,7 @@ public class Main extends Application {
                         container.resolve(ApplicationState.class),
                         container.resolve(EventBus.class),
                         container.resolve(BlockFactory.class),
+                        container.resolve(BindingResolver.class),
                         container.resolve(AstRewriter.class),
                         container.resolve(BlockDragAndDropManager.class),
                         container.resolve(LanguageServerService.class),
@@ -205,6 +222,8 @@ public class Main extends Application {
                     container.resolve(EventBus.class),
                     container.resolve(CodeEditorService.class),
                     container.resolve(com.botmaker.validation.DiagnosticsManager.class),
+                    container.resolve(FrameScheduler.class),
+                    container.resolve(OutputSpool.class),
                     primaryStage
             );
             uiManager.setOnSelectProject(v -> showProjectSelection(primaryStage));
@@ -230,16 +249,10 @@ public class Main extends Application {
 
         dragAndDropManager.setMoveCallback(moveInfo -> {
             System.out.println("Move callback triggered for blockId: " + moveInfo.blockId());
-            StatementBlock blockToMove = BlockLookupHelper.findBlockById(
-                    moveInfo.blockId(),
-                    state.getNodeToBlockMap()
-            );
+            CodeBlock found = state.getBlockById(moveInfo.blockId()).orElse(null);
 
-            if (blockToMove != null) {
-                BodyBlock sourceBody = BlockLookupHelper.findParentBody(
-                        blockToMove,
-                        state.getNodeToBlockMap()
-                );
+            if (found instanceof StatementBlock blockToMove) {
+                BodyBlock sourceBody = blockToMove.getParentBody();
 
                 if (sourceBody != null) {
                     codeEditorService.getCodeEditor().moveStatement(
@@ -1,6 +1,7 @@
 package com.botmaker.blocks;
 
 import com.botmaker.core.AbstractExpressionBlock;
+import com.botmaker.core.BindingAwareBlock;
 import com.botmaker.core.ExpressionBlock;
 import com.botmaker.lsp.CompletionContext;
 import javafx.geometry.Pos;
@@ -8,15 +9,17 @@ import javafx.scene.Node;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.Label;
 import javafx.scene.layout.HBox;
+import org.eclipse.jdt.core.dom.ASTNode;
 import org.eclipse.jdt.core.dom.ITypeBinding;
 import org.eclipse.jdt.core.dom.InfixExpression;
 
-public class BinaryExpressionBlock extends AbstractExpressionBlock {
+public class BinaryExpressionBlock extends AbstractExpressionBlock implements BindingAwareBlock {
 
     private ExpressionBlock leftOperand;
     private ExpressionBlock rightOperand;
     private String operator;
-    private final ITypeBinding returnType;
+    private ITypeBinding returnType; // filled in by the binding pass
+    private Label typeLabel;
 
     // Math operator display names (user-friendly)
     private static final String[] MATH_OPERATOR_NAMES = {
@@ -35,7 +38,6 @@ public class BinaryExpressionBlock extends AbstractExpressionBlock {
     public BinaryExpressionBlock(String id, InfixExpression astNode) {
         super(id, astNode);
         this.operator = astNode.getOperator().toString();
-        this.returnType = astNode.resolveTypeBinding();
     }
 
     public ExpressionBlock getLeftOperand() {
@@ -62,6 +64,18 @@ public class BinaryExpressionBlock extends AbstractExpressionBlock {
         return returnType;
     }
 
+    @Override
+    public void applyBindings(ASTNode resolvedNode) {
+        this.returnType = ((InfixExpression) resolvedNode).resolveTypeBinding();
+        if (typeLabel != null) {
+            typeLabel.setText(getTypeLabelText());
+        }
+    }
+
+    private String getTypeLabelText() {
+        return "→ " + (returnType != null ? returnType.getName() : "unknown");
+    }
+
     @Override
     protected Node createUINode(CompletionContext context) {
         HBox container = new HBox(5);
@@ -114,11 +128,7 @@ public class BinaryExpressionBlock extends AbstractExpressionBlock {
         container.getChildren().add(expressionBox);
 
         // Type indicator (optional, can be removed if too cluttered)
-        String typeName = "unknown";
-        if (returnType != null) {
-            typeName = returnType.getName();
-        }
-        Label typeLabel = new Label("→ " + typeName);
+        typeLabel = new Label(getTypeLabelText());
         typeLabel.setStyle("-fx-font-style: italic; -fx-text-fill: #999; -fx-font-size: 10px;");
         container.getChildren().add(typeLabel);
 
@@ -1,21 +1,23 @@
 package com.botmaker.blocks;
 
 import com.botmaker.core.AbstractExpressionBlock;
+import com.botmaker.core.BindingAwareBlock;
 import com.botmaker.core.ExpressionBlock;
 import com.botmaker.lsp.CompletionContext;
 import javafx.geometry.Pos;
 import javafx.scene.Node;
 import javafx.scene.control.ComboBox;
 import javafx.scene.layout.HBox;
+import org.eclipse.jdt.core.dom.ASTNode;
 import org.eclipse.jdt.core.dom.ITypeBinding;
 import org.eclipse.jdt.core.dom.InfixExpression;
 
-public class ComparisonExpressionBlock extends AbstractExpressionBlock {
+public class ComparisonExpressionBlock extends AbstractExpressionBlock implements BindingAwareBlock {
 
     private ExpressionBlock leftOperand;
     private ExpressionBlock rightOperand;
     private String operator;
-    private final ITypeBinding returnType;
+    private ITypeBinding returnType; // filled in by the binding pass
 
     // Operator display names (user-friendly)
     private static final String[] OPERATOR_NAMES = {
@@ -35,7 +37,6 @@ public class ComparisonExpressionBlock extends AbstractExpressionBlock {
     public ComparisonExpressionBlock(String id, InfixExpression astNode) {
         super(id, astNode);
         this.operator = astNode.getOperator().toString();
-        this.returnType = astNode.resolveTypeBinding();
     }
 
     public ExpressionBlock getLeftOperand() {
@@ -62,6 +63,11 @@ public class ComparisonExpressionBlock extends AbstractExpressionBlock {
         return returnType;
     }
 
+    @Override
+    public void applyBindings(ASTNode resolvedNode) {
+        this.returnType = ((InfixExpression) resolvedNode).resolveTypeBinding();
+    }
+
     @Override
     protected Node createUINode(CompletionContext context) {
         HBox container = new HBox(5);
@@ -1,6 +1,7 @@
 package com.botmaker.blocks;
 
 import com.botmaker.core.AbstractExpressionBlock;
+import com.botmaker.core.BindingAwareBlock;
 import com.botmaker.lsp.CompletionContext;
 import com.botmaker.util.TypeManager;
 import javafx.application.Platform;
@@ -17,9 +18,10 @@ import org.eclipse.lsp4j.*;
 import java.util.List;
 import java.util.stream.Collectors;
 
-public class IdentifierBlock extends AbstractExpressionBlock {
+public class IdentifierBlock extends AbstractExpressionBlock implements BindingAwareBlock {
     private final String identifier;
     private boolean isUnedited = false;
+    private String resolvedExpectedType; // set by the binding pass, null until then
     private static final String UNEDITED_STYLE_CLASS = "unedited-identifier";
 
     public IdentifierBlock(String id, SimpleName astNode) {
@@ -35,6 +37,11 @@ public class IdentifierBlock extends AbstractExpressionBlock {
     public String getIdentifier() { return identifier; }
     public boolean isUnedited() { return isUnedited; }
 
+    @Override
+    public void applyBindings(ASTNode resolvedNode) {
+        this.resolvedExpectedType = determineExpectedType(resolvedNode);
+    }
+
     public void markAsEdited() {
         this.isUnedited = false;
         if (uiNode != null) {
@@ -64,14 +71,17 @@ public class IdentifierBlock extends AbstractExpressionBlock {
 
     private void requestSuggestions(Node uiNode, CompletionContext context) {
         try {
-            Position pos = getPositionFromOffset(context.sourceCode(), this.astNode.getStartPosition());
+            Position pos = getPosition();
             CompletionParams params = new CompletionParams(new TextDocumentIdentifier(context.docUri()), pos);
 
             // 1. Determine Expected Type with Parent Traversal
-            String expectedType = determineExpectedType();
+            String expectedType = resolvedExpectedType != null ? resolvedExpectedType : determineExpectedType(this.astNode);
             System.out.println("[Debug] Suggestion Context -> Expected Type: " + expectedType);
 
-            context.server().getTextDocumentService().completion(params).thenAccept(result -> {
+            // The server must see pending edits before it is asked about positions in them
+            context.documentFlush().get()
+                    .thenCompose(v -> context.server().getTextDocumentService().completion(params))
+                    .thenAccept(result -> {
                 if (result == null || (result.isLeft() && result.getLeft().isEmpty()) ||
                         (result.isRight() && result.getRight().getItems().isEmpty())) {
                     return;
@@ -145,11 +155,11 @@ public class IdentifierBlock extends AbstractExpressionBlock {
     /**
      * Walks up the AST skipping parentheses to find the true semantic parent.
      */
-    private String determineExpectedType() {
-        if (this.astNode == null) return TypeManager.UI_TYPE_ANY;
+    private String determineExpectedType(ASTNode node) {
+        if (node == null) return TypeManager.UI_TYPE_ANY;
 
-        ASTNode child = this.astNode;
-        ASTNode parent = this.astNode.getParent();
+        ASTNode child = node;
+        ASTNode parent = node.getParent();
 
         // 1. Skip Parentheses ((x))
         while (parent instanceof ParenthesizedExpression) {
@@ -253,16 +263,13 @@ public class IdentifierBlock extends AbstractExpressionBlock {
         }
     }
 
-    private Position getPositionFromOffset(String code, int offset) {
-        int line = 0;
-        int lastNewline = -1;
-        for (int i = 0; i < offset; i++) {
-            if (code.charAt(i) == '\n') {
-                line++;
-                lastNewline = i;
-            }
-        }
-        int character = offset - lastNewline - 1;
-        return new Position(line, character);
+    /**
+     * Resolves the LSP position from the tree this block is currently bound to, so it stays
+     * correct when the block is reused across edits elsewhere in the file.
+     */
+    private Position getPosition() {
+        CompilationUnit cu = (CompilationUnit) this.astNode.getRoot();
+        int offset = this.astNode.getStartPosition();
+        return new Position(cu.getLineNumber(offset) - 1, cu.getColumnNumber(offset));
     }
 }
\ No newline at end of file
@@ -27,6 +27,10 @@ public class MainBlock extends AbstractCodeBlock implements BlockWithChildren {
         this.mainBody = mainBody;
     }
 
+    public BodyBlock getMainBody() {
+        return mainBody;
+    }
+
     @Override
     public List<CodeBlock> getChildren() {
         List<CodeBlock> children = new ArrayList<>();
@@ -10,6 +10,7 @@ import javafx.scene.Node;
 import javafx.scene.control.*;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.Priority;
+import org.eclipse.jdt.core.dom.ASTNode;
 import org.eclipse.jdt.core.dom.Type;
 import org.eclipse.jdt.core.dom.VariableDeclarationFragment;
 import org.eclipse.jdt.core.dom.VariableDeclarationStatement;
@@ -17,7 +18,7 @@ import org.eclipse.jdt.core.dom.VariableDeclarationStatement;
 public class VariableDeclarationBlock extends AbstractStatementBlock {
 
     private final String variableName;
-    private final Type variableType;
+    private Type variableType;
     private ExpressionBlock initializer;
 
     public VariableDeclarationBlock(String id, VariableDeclarationStatement astNode) {
@@ -32,6 +33,12 @@ public class VariableDeclarationBlock extends AbstractStatementBlock {
         this.initializer = initializer;
     }
 
+    @Override
+    public void rebind(ASTNode astNode) {
+        super.rebind(astNode);
+        this.variableType = ((VariableDeclarationStatement) astNode).getType();
+    }
+
     @Override
     protected Node createUINode(CompletionContext context) {
         HBox container = new HBox(5);
@@ -28,6 +28,9 @@ public class ApplicationConfig {
     private final int initialWidth;
     private final int initialHeight;
 
+    // Document Sync Configuration
+    private final long documentSyncWindowMs;
+
     // Debug Configuration
     private final boolean enableEventLogging;
 
@@ -43,6 +46,7 @@ public class ApplicationConfig {
         this.javacExecutable = builder.javacExecutable;
         this.initialWidth = builder.initialWidth;
         this.initialHeight = builder.initialHeight;
+        this.documentSyncWindowMs = builder.documentSyncWindowMs;
         this.enableEventLogging = builder.enableEventLogging;
     }
 
@@ -92,6 +96,10 @@ public class ApplicationConfig {
         return initialHeight;
     }
 
+    public long getDocumentSyncWindowMs() {
+        return documentSyncWindowMs;
+    }
+
     public boolean isEnableEventLogging() {
         return enableEventLogging;
     }
@@ -145,6 +153,7 @@ public class ApplicationConfig {
         private String javacExecutable;
         private int initialWidth = 600;
         private int initialHeight = 800;
+        private long documentSyncWindowMs = Constants.DOCUMENT_SYNC_WINDOW_MS;
         private boolean enableEventLogging = false;
 
         public Builder jdtServerPath(Path jdtServerPath) {
@@ -202,6 +211,11 @@ public class ApplicationConfig {
             return this;
         }
 
+        public Builder documentSyncWindowMs(long documentSyncWindowMs) {
+            this.documentSyncWindowMs = documentSyncWindowMs;
+            return this;
+        }
+
         public Builder enableEventLogging(boolean enableEventLogging) {
             this.enableEventLogging = enableEventLogging;
             return this;
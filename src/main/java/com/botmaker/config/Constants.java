@@ -29,5 +29,39 @@ public class Constants {
     public static final boolean LSP_LOG_PROTOCOL = true;
     public static final String LSP_LOG_LEVEL = "ALL";
 
+    // Document sync: send ranged didChange events when the server accepts them (false forces full text)
+    public static final boolean LSP_INCREMENTAL_SYNC = true;
+    public static final int LSP_LATENCY_REPORT_INTERVAL = 20; // log diagnostics latency every N samples
+    public static final long DOCUMENT_SYNC_WINDOW_MS = 150;   // edits within one window share a didChange and file write
+
+    // Parse Cache (undo/redo and revisited versions)
+    public static final int PARSE_CACHE_MAX_ENTRIES = 32;
+    public static final long PARSE_CACHE_MAX_BYTES = 64L * 1024 * 1024;
+    public static final int PARSE_CACHE_STRUCTURAL_BYTES_PER_CHAR = 48; // rough JDT DOM footprint
+    public static final int PARSE_CACHE_BOUND_BYTES_PER_CHAR = 120;     // DOM plus resolved bindings
+    public static final int PARSE_CACHE_REPORT_INTERVAL = 100;          // log hit rate every N lookups
+
+    // Undo/Redo History
+    public static final long HISTORY_MAX_BYTES = 8L * 1024 * 1024;
+    public static final long HISTORY_MERGE_WINDOW_MS = 1000; // successive edits to the same literal within this window merge
+
+    // Block Canvas
+    public static final int CANVAS_MAX_REALIZED_STATEMENTS = 200; // top-level statements whose UI stays built off-screen
+
+    // Frame-synchronized UI updates
+    public static final long UI_FRAME_BUDGET_MS = 8;              // per-frame time spent applying queued UI updates
+    public static final int UI_SCHEDULER_REPORT_INTERVAL = 600;   // log update metrics every N busy frames
+
+    // Program runs
+    public static final int RUN_JVM_POOL_SIZE = 1; // started JVMs kept waiting for the next Run
+
+    // Console output
+    public static final long OUTPUT_SPOOL_SEGMENT_BYTES = 16L * 1024 * 1024; // size of each memory-mapped output file
+    public static final int CONSOLE_MAX_LINE_BYTES = 4096;                   // longer lines are cut when displayed
+    public static final int CONSOLE_FILTER_LINES_PER_FRAME = 20_000;         // lines tested against a filter per frame
+
+    // Event Bus
+    public static final int EVENT_BUS_QUEUE_CAPACITY = 1024; // pending deliveries per async or serial subscriber
+
     private Constants() {} // Prevent instantiation
 }
\ No newline at end of file
@@ -1,11 +1,9 @@
 package com.botmaker.core;
 
 import com.botmaker.lsp.CompletionContext;
-import javafx.beans.binding.Bindings;
+import com.botmaker.ui.BlockDecorations;
 import javafx.geometry.Insets;
 import javafx.scene.Node;
-import javafx.scene.control.ContextMenu;
-import javafx.scene.control.MenuItem;
 import javafx.scene.control.Tooltip;
 import javafx.scene.layout.Pane;
 import javafx.scene.layout.Region;
@@ -16,14 +14,19 @@ import org.eclipse.jdt.core.dom.CompilationUnit;
 
 public abstract class AbstractCodeBlock implements CodeBlock {
     protected final String id;
-    protected final ASTNode astNode;
+    protected ASTNode astNode;
 
     protected Node uiNode;
     private javafx.scene.control.Tooltip errorTooltip;
 
+    // Decoration state kept on the block, so it survives the UI node being released and rebuilt
+    private String errorMessage;
+    private boolean highlighted = false;
+
     // Breakpoint State
     protected boolean isBreakpoint = false;
     private Circle breakpointCircle;
+    private double gutterOffset;
 
     // Constants
     private static final double GUTTER_PADDING = 12.0; // Space reserved on the left
@@ -40,13 +43,18 @@ public abstract class AbstractCodeBlock implements CodeBlock {
     @Override
     public ASTNode getAstNode() { return astNode; }
 
+    @Override
+    public void rebind(ASTNode astNode) {
+        this.astNode = astNode;
+    }
+
     @Override
     public Node getUINode(CompletionContext context) {
         if (uiNode == null) {
             // 1. Create the standard UI
             this.uiNode = createUINode(context);
 
-            // 2. Inject the visual Gutter (Padding + Circle)
+            // 2. Reserve the gutter; the marker itself is only created for breakpoints
             if (uiNode instanceof Region) {
                 Region region = (Region) uiNode;
 
@@ -58,56 +66,34 @@ public abstract class AbstractCodeBlock implements CodeBlock {
                         existing.getBottom(),
                         existing.getLeft() + GUTTER_PADDING
                 ));
-
-                // If the UI node allows children (Pane), add the floating circle
-                if (uiNode instanceof Pane) {
-                    Pane pane = (Pane) uiNode;
-
-                    breakpointCircle = new Circle(CIRCLE_RADIUS, Color.RED);
-                    breakpointCircle.setManaged(false); // Don't affect flow layout
-                    breakpointCircle.setVisible(false); // Hidden by default
-
-                    // Position: Center vertically, placed inside the left padding
-                    // x = (Padding / 2) roughly centers it in the gutter
-                    breakpointCircle.setLayoutX(GUTTER_PADDING / 2 + existing.getLeft());
-                    breakpointCircle.centerYProperty().bind(pane.heightProperty().divide(2));
-
-                    pane.getChildren().add(breakpointCircle);
-                }
+                gutterOffset = existing.getLeft();
             }
 
-            // 3. Setup Interaction
-            setupBreakpointInteraction();
+            // 3. Shared context menu and hint tooltip
+            BlockDecorations.attach(uiNode, this);
 
-            // 4. Discovery Tooltip
-            Tooltip tip = new Tooltip("Right-click to toggle breakpoint");
-            Tooltip.install(uiNode, tip);
+            // 4. Re-apply decorations set while there was no UI node
+            if (errorMessage != null) applyError();
+            if (highlighted) uiNode.getStyleClass().add("highlighted");
+            updateBreakpointVisuals();
         }
-
-        updateBreakpointVisuals();
         return uiNode;
     }
 
-    private void setupBreakpointInteraction() {
-        if (uiNode == null) return;
-
-        ContextMenu contextMenu = new ContextMenu();
-        MenuItem toggleBpItem = new MenuItem("Toggle Breakpoint");
-        toggleBpItem.setOnAction(ev -> toggleBreakpoint());
-        contextMenu.getItems().add(toggleBpItem);
-
-        uiNode.setOnContextMenuRequested(e -> {
-            toggleBpItem.setText(isBreakpoint ? "Remove Breakpoint 🔴" : "Add Breakpoint ⚪");
-            contextMenu.show(uiNode, e.getScreenX(), e.getScreenY());
-            e.consume();
-        });
-    }
-
     @Override
     public Node getUINode() { return uiNode; }
 
+    @Override
+    public void releaseUINode() {
+        uiNode = null;
+        errorTooltip = null;
+        breakpointCircle = null;
+        gutterOffset = 0;
+    }
+
     @Override
     public void highlight() {
+        highlighted = true;
         if (uiNode != null && !uiNode.getStyleClass().contains("highlighted")) {
             uiNode.getStyleClass().add("highlighted");
         }
@@ -115,6 +101,7 @@ public abstract class AbstractCodeBlock implements CodeBlock {
 
     @Override
     public void unhighlight() {
+        highlighted = false;
         if (uiNode != null) {
             uiNode.getStyleClass().remove("highlighted");
         }
@@ -122,26 +109,33 @@ public abstract class AbstractCodeBlock implements CodeBlock {
 
     @Override
     public void setError(String message) {
+        this.errorMessage = message;
         if (uiNode != null) {
-            if (!uiNode.getStyleClass().contains("error-block")) {
-                uiNode.getStyleClass().add("error-block");
-            }
-            if (errorTooltip == null) {
-                errorTooltip = new Tooltip(message);
-                Tooltip.install(uiNode, errorTooltip);
-            } else {
-                errorTooltip.setText(message);
-            }
+            applyError();
+        }
+    }
+
+    private void applyError() {
+        if (!uiNode.getStyleClass().contains("error-block")) {
+            uiNode.getStyleClass().add("error-block");
+        }
+        if (errorTooltip == null) {
+            errorTooltip = new Tooltip(errorMessage);
+            Tooltip.install(uiNode, errorTooltip);
+        } else {
+            errorTooltip.setText(errorMessage);
         }
     }
 
     @Override
     public void clearError() {
+        this.errorMessage = null;
         if (uiNode != null) {
             uiNode.getStyleClass().remove("error-block");
             if (errorTooltip != null) {
                 Tooltip.uninstall(uiNode, errorTooltip);
                 errorTooltip = null;
+                BlockDecorations.restoreHint(uiNode);
             }
         }
     }
@@ -178,23 +172,22 @@ public abstract class AbstractCodeBlock implements CodeBlock {
     }
 
     private void updateBreakpointVisuals() {
-        // Update the circle visibility
-        if (breakpointCircle != null) {
-            breakpointCircle.setVisible(isBreakpoint);
-        }
-
-        // Optional: Keep the red border as secondary reinforcement, or remove if circle is enough
-        if (uiNode != null) {
-            String style = uiNode.getStyle();
-            String borderStyle = "-fx-border-color: #e74c3c; -fx-border-width: 0 0 0 2; -fx-border-style: solid;";
-
-            if (isBreakpoint) {
-                if (!style.contains("-fx-border-color: #e74c3c")) {
-                    uiNode.setStyle(style + borderStyle);
-                }
-            } else {
-                uiNode.setStyle(style.replace(borderStyle, ""));
-            }
+        if (uiNode == null) return;
+        BlockDecorations.setBreakpoint(uiNode, isBreakpoint);
+
+        // Gutter marker, only while the block has a breakpoint
+        if (isBreakpoint && breakpointCircle == null && uiNode instanceof Pane pane) {
+            breakpointCircle = new Circle(CIRCLE_RADIUS, Color.RED);
+            breakpointCircle.setManaged(false); // Don't affect flow layout
+
+            // Position: Center vertically, placed inside the left padding
+            breakpointCircle.setLayoutX(GUTTER_PADDING / 2 + gutterOffset);
+            breakpointCircle.centerYProperty().bind(pane.heightProperty().divide(2));
+            pane.getChildren().add(breakpointCircle);
+        } else if (!isBreakpoint && breakpointCircle != null) {
+            breakpointCircle.centerYProperty().unbind();
+            ((Pane) uiNode).getChildren().remove(breakpointCircle);
+            breakpointCircle = null;
         }
     }
 
@@ -3,7 +3,22 @@ package com.botmaker.core;
 import org.eclipse.jdt.core.dom.ASTNode;
 
 public abstract class AbstractStatementBlock extends AbstractCodeBlock implements StatementBlock {
+    private BodyBlock parentBody;
+    private int indexInParent = -1;
+
     public AbstractStatementBlock(String id, ASTNode astNode) {
         super(id, astNode);
     }
+
+    @Override
+    public BodyBlock getParentBody() { return parentBody; }
+
+    @Override
+    public int getIndexInParent() { return indexInParent; }
+
+    @Override
+    public void setParent(BodyBlock parentBody, int indexInParent) {
+        this.parentBody = parentBody;
+        this.indexInParent = indexInParent;
+    }
 }
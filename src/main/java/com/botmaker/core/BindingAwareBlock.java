@@ -0,0 +1,12 @@
+package com.botmaker.core;
+
+import org.eclipse.jdt.core.dom.ASTNode;
+
+/**
+ * Implemented by blocks that display type information.
+ * Blocks are built from a structural parse; once a binding-resolved parse of the same
+ * source is ready, the equivalent node of that tree is handed over on the FX thread.
+ */
+public interface BindingAwareBlock {
+    void applyBindings(ASTNode resolvedNode);
+}
@@ -15,21 +15,52 @@ public class BodyBlock extends AbstractStatementBlock implements BlockWithChildr
     private final List<StatementBlock> statements = new ArrayList<>();
     private final BlockDragAndDropManager dragAndDropManager;
 
+    // Collapsed bodies keep their statement blocks but build no UI for them until expanded
+    private boolean collapsed = false;
+    private CompletionContext lastContext;
+
     public BodyBlock(String id, org.eclipse.jdt.core.dom.Block astNode, BlockDragAndDropManager dragAndDropManager) {
         super(id, astNode);
         this.dragAndDropManager = dragAndDropManager;
     }
 
     public void addStatement(StatementBlock statement) {
+        statement.setParent(this, statements.size());
+        statements.add(statement);
+    }
+
+    /**
+     * Adds a statement without setting its parent and index. Used while a tree is built off the
+     * FX thread: a reused statement is still shown in the current tree, so its links may only
+     * change once the new tree is installed, through {@link #linkStatements()}.
+     */
+    public void appendStatement(StatementBlock statement) {
         statements.add(statement);
     }
 
+    /** Points every statement of this body back at it, with its current index. */
+    public void linkStatements() {
+        reindexFrom(0);
+    }
+
     public List<StatementBlock> getStatements() {
         return new ArrayList<>(statements);
     }
 
+    public int getStatementCount() {
+        return statements.size();
+    }
+
+    public StatementBlock getStatement(int index) {
+        return statements.get(index);
+    }
+
     public void removeStatement(StatementBlock statement) {
-        statements.remove(statement);
+        int index = statement.getParentBody() == this ? statement.getIndexInParent() : statements.indexOf(statement);
+        if (index < 0 || index >= statements.size() || statements.get(index) != statement) return;
+        statements.remove(index);
+        statement.setParent(null, -1);
+        reindexFrom(index);
     }
 
     public void insertStatement(int index, StatementBlock statement) {
@@ -37,6 +68,13 @@ public class BodyBlock extends AbstractStatementBlock implements BlockWithChildr
             throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + statements.size());
         }
         statements.add(index, statement);
+        reindexFrom(index);
+    }
+
+    private void reindexFrom(int index) {
+        for (int i = index; i < statements.size(); i++) {
+            statements.get(i).setParent(this, i);
+        }
     }
 
     @Override
@@ -46,9 +84,11 @@ public class BodyBlock extends AbstractStatementBlock implements BlockWithChildr
 
     @Override
     protected Node createUINode(CompletionContext context) {
-        VBox container = new VBox();
+        VBox container = new VBox(8);
         container.getStyleClass().add("body-block");
         VBox.setVgrow(container, Priority.ALWAYS);
+        // Drops are hit-tested by the canvas; the body only has to be recognizable
+        dragAndDropManager.registerDropBody(container, this);
 
         if (statements.isEmpty()) {
             javafx.scene.control.Label placeholder = new javafx.scene.control.Label("Drag block here");
@@ -57,24 +97,70 @@ public class BodyBlock extends AbstractStatementBlock implements BlockWithChildr
             container.getChildren().add(placeholder);
             container.setAlignment(javafx.geometry.Pos.CENTER);
             container.setMinHeight(30);
-            dragAndDropManager.addEmptyBodyDropHandlers(container, this);
         } else {
-            // Add a separator at the beginning
-            container.getChildren().add(createSeparatorWithHandlers(this, 0));
+            this.lastContext = context;
+            fillStatements(container, context);
+        }
+        return container;
+    }
 
-            for (int i = 0; i < statements.size(); i++) {
-                StatementBlock statement = statements.get(i);
-                Node statementNode = statement.getUINode(context);
+    private void fillStatements(VBox container, CompletionContext context) {
+        container.getChildren().clear();
+        if (isCollapsible()) {
+            container.getChildren().add(createCollapseToggle());
+        }
+        if (collapsed) return;
 
-                // Make the statement block draggable for repositioning
-                makeStatementDraggable(statementNode, statement);
+        for (int i = 0; i < statements.size(); i++) {
+            container.getChildren().add(getStatementNode(i, context));
+        }
+    }
 
-                container.getChildren().add(statementNode);
-                // Add a separator after each statement
-                container.getChildren().add(createSeparatorWithHandlers(this, i + 1));
+    private Node createCollapseToggle() {
+        javafx.scene.control.Button toggle = new javafx.scene.control.Button(
+                collapsed ? "▸ " + statements.size() + (statements.size() == 1 ? " statement" : " statements") : "▾");
+        toggle.getStyleClass().add("body-collapse-toggle");
+        toggle.setOnAction(e -> {
+            setCollapsed(!collapsed);
+            if (uiNode != null) {
+                uiNode.fireEvent(new com.botmaker.ui.BlockEvent.CollapseToggleEvent(this, collapsed));
             }
+        });
+        return toggle;
+    }
+
+    /** The method body shown by the canvas is always open; nested bodies can be folded. */
+    public boolean isCollapsible() {
+        return !(astNode.getParent() instanceof org.eclipse.jdt.core.dom.MethodDeclaration);
+    }
+
+    public boolean isCollapsed() {
+        return collapsed;
+    }
+
+    /**
+     * Folds or unfolds this body. Expanding builds the statement nodes on demand; collapsing
+     * takes them out of the layout.
+     */
+    public void setCollapsed(boolean collapsed) {
+        if (this.collapsed == collapsed || !isCollapsible()) return;
+        this.collapsed = collapsed;
+        if (uiNode instanceof VBox container && !statements.isEmpty() && lastContext != null) {
+            fillStatements(container, lastContext);
         }
-        return container;
+    }
+
+    /**
+     * UI node of the statement at {@code index}, set up to be dragged out of this body.
+     * Used by this body's own UI and by the virtualized canvas, which lays statements out itself.
+     */
+    public Node getStatementNode(int index, CompletionContext context) {
+        StatementBlock statement = statements.get(index);
+        Node statementNode = statement.getUINode(context);
+
+        // Make the statement block draggable for repositioning
+        makeStatementDraggable(statementNode, statement);
+        return statementNode;
     }
 
     /**
@@ -93,12 +179,4 @@ public class BodyBlock extends AbstractStatementBlock implements BlockWithChildr
         // Register with the drag and drop manager
         dragAndDropManager.makeBlockMovable(statementNode, statement, this);
     }
-
-    private Node createSeparatorWithHandlers(BodyBlock targetBody, int insertionIndex) {
-        javafx.scene.layout.Region separator = dragAndDropManager.createSeparator();
-        separator.getStyleClass().add("body-block-separator");
-        StatementBlock adjacentBlock = (insertionIndex < statements.size()) ? statements.get(insertionIndex) : null;
-        dragAndDropManager.addSeparatorDragHandlers(separator, targetBody, insertionIndex, adjacentBlock);
-        return separator;
-    }
 }
\ No newline at end of file
@@ -8,9 +8,21 @@ import org.eclipse.jdt.core.dom.CompilationUnit;
 public interface CodeBlock {
     String getId();
     ASTNode getAstNode();
+
+    /**
+     * Points this block at the equivalent node of a newer parse of the same source,
+     * so the block and its cached UI can be reused instead of being rebuilt.
+     */
+    void rebind(ASTNode astNode);
     Node getUINode(CompletionContext context);
     Node getUINode();
 
+    /**
+     * Drops the cached UI node so it can be garbage collected, e.g. when the block scrolls
+     * far out of view. The next getUINode(context) rebuilds it with the current decorations.
+     */
+    void releaseUINode();
+
     // Visual State
     void highlight();
     void unhighlight();
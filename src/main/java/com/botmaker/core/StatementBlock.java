@@ -5,4 +5,13 @@ package com.botmaker.core;
  * Examples: a variable declaration, an if-statement, a method call.
  */
 public interface StatementBlock extends CodeBlock {
+
+    /** Body this statement was last added to, or null for a statement outside any body. */
+    BodyBlock getParentBody();
+
+    /** Position of this statement in its parent body, or -1. */
+    int getIndexInParent();
+
+    /** Maintained by {@link BodyBlock} as statements are added and removed. */
+    void setParent(BodyBlock parentBody, int indexInParent);
 }
@@ -0,0 +1,15 @@
+package com.botmaker.events;
+
+/**
+ * An event that only matters in its latest form, such as a status message or a full set of
+ * diagnostics. When a subscriber that is not called synchronously still has one waiting,
+ * a newer event with the same key replaces it instead of queueing behind it. Listeners of
+ * all events (such as the event log) still receive every one.
+ */
+public interface CoalescableEvent extends ApplicationEvent {
+
+    /** Events with equal keys replace each other; by default all events of the same class do. */
+    default Object coalesceKey() {
+        return getClass();
+    }
+}
@@ -1,6 +1,7 @@
 package com.botmaker.events;
 
 import com.botmaker.core.CodeBlock;
+import com.botmaker.state.TextDelta;
 import org.eclipse.lsp4j.Diagnostic;
 import java.util.Collections;
 import java.util.List;
@@ -12,15 +13,25 @@ public class CoreApplicationEvents {
     public static class CodeUpdatedEvent extends AbstractApplicationEvent {
         private final String newCode;
         private final String previousCode;
-        public CodeUpdatedEvent(String newCode, String previousCode) {
+        private final List<TextDelta> deltas;
+        private final long baseVersion;
+        /**
+         * @param deltas Sequential edits turning previousCode into newCode
+         * @param baseVersion Document version previousCode corresponds to
+         */
+        public CodeUpdatedEvent(String newCode, String previousCode, List<TextDelta> deltas, long baseVersion) {
             this.newCode = newCode;
             this.previousCode = previousCode;
+            this.deltas = List.copyOf(deltas);
+            this.baseVersion = baseVersion;
         }
         public String getNewCode() { return newCode; }
         public String getPreviousCode() { return previousCode; }
+        public List<TextDelta> getDeltas() { return deltas; }
+        public long getBaseVersion() { return baseVersion; }
     }
 
-    public static class DiagnosticsUpdatedEvent extends AbstractApplicationEvent {
+    public static class DiagnosticsUpdatedEvent extends AbstractApplicationEvent implements CoalescableEvent {
         private final List<Diagnostic> diagnostics;
         public DiagnosticsUpdatedEvent(List<Diagnostic> diagnostics) {
             this.diagnostics = diagnostics != null ? List.copyOf(diagnostics) : Collections.emptyList();
@@ -30,11 +41,20 @@ public class CoreApplicationEvents {
 
     public static class UIRefreshRequestedEvent extends AbstractApplicationEvent {
         private final String code;
-        public UIRefreshRequestedEvent(String code) { this.code = code; }
+        private final long docVersion;
+        private final List<TextDelta> deltas;
+        public UIRefreshRequestedEvent(String code, long docVersion, List<TextDelta> deltas) {
+            this.code = code;
+            this.docVersion = docVersion;
+            this.deltas = List.copyOf(deltas);
+        }
         public String getCode() { return code; }
+        public long getDocVersion() { return docVersion; }
+        /** Edits from the previous document version to this one (empty on a full reload). */
+        public List<TextDelta> getDeltas() { return deltas; }
     }
 
-    public static class BlockHighlightEvent extends AbstractApplicationEvent {
+    public static class BlockHighlightEvent extends AbstractApplicationEvent implements CoalescableEvent {
         private final CodeBlock block;
         public BlockHighlightEvent(CodeBlock block) { this.block = block; }
         public CodeBlock getBlock() { return block; }
@@ -59,7 +79,7 @@ public class CoreApplicationEvents {
         public CodeBlock getBlock() { return block; }
     }
 
-    public static class StatusMessageEvent extends AbstractApplicationEvent {
+    public static class StatusMessageEvent extends AbstractApplicationEvent implements CoalescableEvent {
         private final String message;
         public StatusMessageEvent(String message) { this.message = message; }
         public String getMessage() { return message; }
@@ -98,7 +118,7 @@ public class CoreApplicationEvents {
     /**
      * Fired whenever the history stack changes (to enable/disable UI buttons)
      */
-    public static class HistoryStateChangedEvent extends AbstractApplicationEvent {
+    public static class HistoryStateChangedEvent extends AbstractApplicationEvent implements CoalescableEvent {
         private final boolean canUndo;
         private final boolean canRedo;
 
@@ -180,4 +200,18 @@ public class CoreApplicationEvents {
         public CodeBlock getBlock() { return block; }
         public boolean isEnabled() { return isEnabled; }
     }
+
+    public static class BlockCollapseToggledEvent extends AbstractApplicationEvent {
+        private final CodeBlock block;
+        private final boolean isCollapsed;
+
+        public BlockCollapseToggledEvent(CodeBlock block, boolean isCollapsed) {
+            super("User");
+            this.block = block;
+            this.isCollapsed = isCollapsed;
+        }
+
+        public CodeBlock getBlock() { return block; }
+        public boolean isCollapsed() { return isCollapsed; }
+    }
 }
\ No newline at end of file
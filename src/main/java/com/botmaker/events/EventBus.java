@@ -1,10 +1,16 @@
 package com.botmaker.events;
 
+import com.botmaker.config.Constants;
 import javafx.application.Platform;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -12,14 +18,47 @@ import java.util.logging.Logger;
 /**
  * Central event bus for application-wide event communication.
  * Thread-safe and supports both synchronous and asynchronous event delivery.
+ *
+ * Each subscription picks a {@link DispatchMode}. Asynchronous and serial subscribers have a
+ * bounded backlog with a {@link Backpressure} policy, so a slow subscriber can neither stall
+ * the publisher nor grow without limit. {@link CoalescableEvent}s waiting for such a
+ * subscriber are replaced by newer ones with the same key rather than queued; listeners of
+ * every event ({@link #subscribeAll}) are exempt, so a log still sees each one.
+ *
+ * Subscribers of an event are called in subscription order; there are no priorities.
  */
 public class EventBus {
     private static final Logger LOGGER = Logger.getLogger(EventBus.class.getName());
 
+    /** How a subscriber is called relative to the publisher. */
+    public enum DispatchMode {
+        /** On the publisher's thread, before publish returns. */
+        SYNC,
+        /** On the FX thread; directly if the publisher is already on it. */
+        FX,
+        /** On a virtual thread per event, with no ordering between events. */
+        ASYNC,
+        /** One event at a time, in publish order, off the publisher's thread. */
+        SERIAL
+    }
+
+    /** What publishing does when an ASYNC or SERIAL subscriber's backlog is full. */
+    public enum Backpressure {
+        /** Wait for room, except on the FX thread, which must not stall: there it acts as DROP_OLDEST. */
+        BLOCK,
+        /** Drop the oldest waiting event (SERIAL); ASYNC subscribers drop the new one instead. */
+        DROP_OLDEST,
+        /** Drop the new event. */
+        DROP_NEWEST
+    }
+
     private final Map<Class<? extends ApplicationEvent>, List<EventHandler<?>>> handlers;
     // NEW: List for listeners that want to receive EVERY event (like the Event Log)
-    private final List<Consumer<ApplicationEvent>> globalListeners;
+    private final List<EventHandler<ApplicationEvent>> globalListeners;
     private final boolean enableLogging;
+    // Where runOnFxThread handlers are queued; the app replaces this with its frame scheduler
+    private volatile Executor fxExecutor = Platform::runLater;
+    private final ExecutorService asyncExecutor = Executors.newVirtualThreadPerTaskExecutor();
 
     public EventBus() {
         this(false);
@@ -31,6 +70,13 @@ public class EventBus {
         this.enableLogging = enableLogging;
     }
 
+    /**
+     * Sets how handlers subscribed with runOnFxThread get onto the FX thread.
+     */
+    public void setFxExecutor(Executor fxExecutor) {
+        this.fxExecutor = fxExecutor;
+    }
+
     /**
      * Subscribe to events of a specific type
      */
@@ -45,12 +91,31 @@ public class EventBus {
             Class<T> eventType,
             Consumer<T> handler,
             boolean runOnFxThread) {
+        subscribe(eventType, handler, runOnFxThread ? DispatchMode.FX : DispatchMode.SYNC);
+    }
+
+    /**
+     * Subscribe with a dispatch mode and the default backlog (dropping the oldest event when full)
+     */
+    public <T extends ApplicationEvent> void subscribe(Class<T> eventType, Consumer<T> handler, DispatchMode mode) {
+        subscribe(eventType, handler, mode, Constants.EVENT_BUS_QUEUE_CAPACITY, Backpressure.DROP_OLDEST);
+    }
+
+    /**
+     * Subscribe with a dispatch mode and a backlog bound for ASYNC and SERIAL delivery
+     */
+    public <T extends ApplicationEvent> void subscribe(
+            Class<T> eventType,
+            Consumer<T> handler,
+            DispatchMode mode,
+            int capacity,
+            Backpressure backpressure) {
 
         handlers.computeIfAbsent(eventType, k -> new CopyOnWriteArrayList<>())
-                .add(new EventHandler<>(handler, runOnFxThread));
+                .add(new EventHandler<>(eventType.getSimpleName(), handler, mode, capacity, backpressure, true));
 
         if (enableLogging) {
-            LOGGER.info("Subscribed to " + eventType.getSimpleName());
+            LOGGER.info("Subscribed to " + eventType.getSimpleName() + " (" + mode + ")");
         }
     }
 
@@ -59,7 +124,15 @@ public class EventBus {
      * Useful for logging and debugging consoles.
      */
     public void subscribeAll(Consumer<ApplicationEvent> listener) {
-        globalListeners.add(listener);
+        subscribeAll(listener, DispatchMode.SYNC, Constants.EVENT_BUS_QUEUE_CAPACITY, Backpressure.DROP_OLDEST);
+    }
+
+    /**
+     * Subscribe to ALL events with a dispatch mode, e.g. so a log can format off the publisher's thread.
+     * Events are never coalesced for these listeners; only the backpressure policy can drop them.
+     */
+    public void subscribeAll(Consumer<ApplicationEvent> listener, DispatchMode mode, int capacity, Backpressure backpressure) {
+        globalListeners.add(new EventHandler<>("*", listener, mode, capacity, backpressure, false));
     }
 
     /**
@@ -81,7 +154,7 @@ public class EventBus {
         if (eventHandlers != null && !eventHandlers.isEmpty()) {
             for (EventHandler<?> handler : eventHandlers) {
                 try {
-                    handler.handle(event);
+                    handler.dispatch(event);
                 } catch (Exception e) {
                     LOGGER.log(Level.SEVERE, "Error handling event: " + eventType.getSimpleName(), e);
                 }
@@ -91,9 +164,9 @@ public class EventBus {
         }
 
         // 2. NEW: Notify global listeners
-        for (Consumer<ApplicationEvent> globalListener : globalListeners) {
+        for (EventHandler<ApplicationEvent> globalListener : globalListeners) {
             try {
-                globalListener.accept(event);
+                globalListener.dispatch(event);
             } catch (Exception e) {
                 e.printStackTrace();
             }
@@ -130,24 +203,167 @@ public class EventBus {
         return eventHandlers != null ? eventHandlers.size() : 0;
     }
 
-    private static class EventHandler<T extends ApplicationEvent> {
+    /**
+     * Coalesced and dropped deliveries of every subscriber that has had any
+     */
+    public String report() {
+        StringBuilder sb = new StringBuilder("Event bus deliveries:");
+        List<EventHandler<?>> all = new ArrayList<>(globalListeners);
+        handlers.values().forEach(all::addAll);
+        for (EventHandler<?> handler : all) {
+            if (handler.coalesced.get() > 0 || handler.dropped.get() > 0) {
+                sb.append("\n  ").append(handler.name).append(" (").append(handler.mode).append("): ")
+                        .append(handler.coalesced.get()).append(" coalesced, ")
+                        .append(handler.dropped.get()).append(" dropped");
+            }
+        }
+        return sb.toString();
+    }
+
+    /** One waiting call of a subscriber. Coalesced deliveries read the latest event for their key when they run. */
+    private record Delivery(ApplicationEvent event, Object coalesceKey) {}
+
+    private class EventHandler<T extends ApplicationEvent> {
+        private final String name;
         private final Consumer<T> handler;
-        private final boolean runOnFxThread;
+        private final DispatchMode mode;
+        private final int capacity;
+        private final Backpressure backpressure;
+        private final boolean coalesce;
+
+        // Latest event per coalesce key that has a delivery waiting
+        private final Map<Object, ApplicationEvent> latest = new ConcurrentHashMap<>();
+        private final AtomicLong coalesced = new AtomicLong();
+        private final AtomicLong dropped = new AtomicLong();
+
+        // ASYNC: deliveries in flight; SERIAL: the lane and whether a thread is draining it
+        private final Semaphore inFlight;
+        private final ArrayDeque<Delivery> lane = new ArrayDeque<>();
+        private boolean draining = false;
 
-        EventHandler(Consumer<T> handler, boolean runOnFxThread) {
+        EventHandler(String name, Consumer<T> handler, DispatchMode mode, int capacity,
+                     Backpressure backpressure, boolean coalesce) {
+            this.name = name;
             this.handler = handler;
-            this.runOnFxThread = runOnFxThread;
+            this.mode = mode;
+            this.capacity = Math.max(1, capacity);
+            this.backpressure = backpressure;
+            this.coalesce = coalesce;
+            this.inFlight = new Semaphore(this.capacity);
         }
 
-        @SuppressWarnings("unchecked")
-        void handle(ApplicationEvent event) {
-            if (runOnFxThread && !Platform.isFxApplicationThread()) {
-                Platform.runLater(() -> handler.accept((T) event));
+        void dispatch(ApplicationEvent event) {
+            if (mode == DispatchMode.SYNC || (mode == DispatchMode.FX && Platform.isFxApplicationThread())) {
+                call(event);
+                return;
+            }
+
+            Delivery delivery;
+            if (coalesce && event instanceof CoalescableEvent coalescable) {
+                Object key = coalescable.coalesceKey();
+                if (latest.put(key, event) != null) {
+                    // A delivery for this key is still waiting and will pick this event up
+                    coalesced.incrementAndGet();
+                    return;
+                }
+                delivery = new Delivery(null, key);
             } else {
-                handler.accept((T) event);
+                delivery = new Delivery(event, null);
+            }
+
+            switch (mode) {
+                case FX -> fxExecutor.execute(() -> deliver(delivery));
+                case ASYNC -> submitAsync(delivery);
+                case SERIAL -> submitSerial(delivery);
+                default -> deliver(delivery);
+            }
+        }
+
+        private void submitAsync(Delivery delivery) {
+            if (backpressure == Backpressure.BLOCK && !Platform.isFxApplicationThread()) {
+                try {
+                    inFlight.acquire();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    drop(delivery);
+                    return;
+                }
+            } else if (!inFlight.tryAcquire()) {
+                drop(delivery);
+                return;
+            }
+            asyncExecutor.execute(() -> {
+                try {
+                    deliver(delivery);
+                } finally {
+                    inFlight.release();
+                }
+            });
+        }
+
+        private void submitSerial(Delivery delivery) {
+            synchronized (lane) {
+                while (lane.size() >= capacity) {
+                    if (backpressure == Backpressure.DROP_NEWEST) {
+                        drop(delivery);
+                        return;
+                    } else if (backpressure == Backpressure.DROP_OLDEST || Platform.isFxApplicationThread()) {
+                        drop(lane.poll());
+                    } else {
+                        try {
+                            lane.wait();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            drop(delivery);
+                            return;
+                        }
+                    }
+                }
+                lane.add(delivery);
+                if (draining) return;
+                draining = true;
+            }
+            asyncExecutor.execute(this::drainLane);
+        }
+
+        private void drainLane() {
+            while (true) {
+                Delivery next;
+                synchronized (lane) {
+                    next = lane.poll();
+                    if (next == null) {
+                        draining = false;
+                        return;
+                    }
+                    lane.notifyAll();
+                }
+                deliver(next);
+            }
+        }
+
+        private void drop(Delivery delivery) {
+            // Forget the latest event too, or later ones would be coalesced into a delivery that never runs
+            if (delivery.coalesceKey() != null) latest.remove(delivery.coalesceKey());
+            if (dropped.incrementAndGet() == 1) {
+                LOGGER.warning("Event subscriber backlog full, dropping events for " + name + " (" + mode + ")");
             }
         }
 
+        private void deliver(Delivery delivery) {
+            ApplicationEvent event = delivery.coalesceKey() != null ? latest.remove(delivery.coalesceKey()) : delivery.event();
+            if (event == null) return;
+            try {
+                call(event);
+            } catch (Exception e) {
+                LOGGER.log(Level.SEVERE, "Error handling event: " + name, e);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private void call(ApplicationEvent event) {
+            handler.accept((T) event);
+        }
+
         Consumer<T> getHandler() {
             return handler;
         }
@@ -4,6 +4,9 @@ import com.botmaker.parser.CodeEditor;
 import com.botmaker.ui.BlockDragAndDropManager;
 import org.eclipse.lsp4j.services.LanguageServer;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
 /**
  * Context object passed to blocks for UI rendering and editing operations.
  * Phase 3: Removed Main dependency - blocks now use only what they need.
@@ -14,7 +17,8 @@ public record CompletionContext(
         String docUri,
         String sourceCode,
         long docVersion,
-        BlockDragAndDropManager dragAndDropManager
+        BlockDragAndDropManager dragAndDropManager,
+        Supplier<CompletableFuture<Void>> documentFlush // sends edits still waiting in the sync window
 ) {
     // All the data blocks need, without Main reference
 }
\ No newline at end of file
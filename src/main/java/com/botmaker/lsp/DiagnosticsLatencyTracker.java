@@ -0,0 +1,72 @@
+package com.botmaker.lsp;
+
+import com.botmaker.config.Constants;
+
+/**
+ * Measures the time between a didChange and the next diagnostics published for the document,
+ * separately for incremental and full-text sync, so the two modes can be compared.
+ */
+public class DiagnosticsLatencyTracker {
+
+    public enum SyncMode { INCREMENTAL, FULL }
+
+    private final Stats incremental = new Stats();
+    private final Stats full = new Stats();
+    private final boolean enableLogging;
+
+    private long pendingSince = -1;
+    private SyncMode pendingMode;
+    private int pendingChars;
+
+    public DiagnosticsLatencyTracker(boolean enableLogging) {
+        this.enableLogging = enableLogging;
+    }
+
+    /** Records a didChange. Only the latest change is timed if several are sent before diagnostics arrive. */
+    public synchronized void changeSent(SyncMode mode, int payloadChars) {
+        if (pendingSince < 0) {
+            pendingSince = System.nanoTime();
+        }
+        pendingMode = mode;
+        pendingChars += payloadChars;
+    }
+
+    /** Records that diagnostics arrived for the document. */
+    public synchronized void diagnosticsReceived() {
+        if (pendingSince < 0) return;
+        long elapsedNanos = System.nanoTime() - pendingSince;
+        Stats stats = pendingMode == SyncMode.INCREMENTAL ? incremental : full;
+        stats.add(elapsedNanos, pendingChars);
+        pendingSince = -1;
+        pendingChars = 0;
+
+        if (enableLogging && (incremental.count + full.count) % Constants.LSP_LATENCY_REPORT_INTERVAL == 0) {
+            System.out.println(report());
+        }
+    }
+
+    public synchronized String report() {
+        return "Diagnostics latency - incremental: " + incremental + " | full: " + full;
+    }
+
+    private static final class Stats {
+        private int count;
+        private long totalNanos;
+        private long maxNanos;
+        private long totalChars;
+
+        void add(long nanos, int chars) {
+            count++;
+            totalNanos += nanos;
+            maxNanos = Math.max(maxNanos, nanos);
+            totalChars += chars;
+        }
+
+        @Override
+        public String toString() {
+            if (count == 0) return "no samples";
+            return String.format("n=%d avg=%.1fms max=%.1fms avgPayload=%d chars",
+                    count, totalNanos / 1e6 / count, maxNanos / 1e6, totalChars / count);
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.botmaker.lsp;
+
+import com.botmaker.state.TextDelta;
+import org.eclipse.lsp4j.DidChangeTextDocumentParams;
+import org.eclipse.lsp4j.TextDocumentContentChangeEvent;
+import org.eclipse.lsp4j.VersionedTextDocumentIdentifier;
+import org.eclipse.lsp4j.services.LanguageServer;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Single writer for the open document. Edits are queued from any thread and flushed from one
+ * worker thread at most once per window: the burst becomes one didChange (ranged if possible)
+ * and one atomic file write, so rapid drag-and-drop sequences neither block the FX thread nor
+ * flood JDT LS.
+ */
+public class DocumentSyncActor {
+
+    private final LanguageServer server;
+    private final String docUri;
+    private final Path docPath;
+    private final long windowMs;
+    private final boolean incrementalSync;
+    private final DiagnosticsLatencyTracker latencyTracker;
+    private final Consumer<String> errorReporter;
+
+    private final ScheduledExecutorService worker = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "document-sync");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // Pending burst, guarded by this
+    private String baseCode;
+    private String latestCode;
+    private long latestVersion;
+    private final List<TextDelta> pendingDeltas = new ArrayList<>();
+    private boolean deltasUsable = true;
+    private ScheduledFuture<?> scheduledFlush; // end-of-window flush, null when none is pending
+    private CompletableFuture<Void> pendingFlush = new CompletableFuture<>();
+
+    public DocumentSyncActor(LanguageServer server, String docUri, Path docPath, long windowMs,
+                             boolean incrementalSync, DiagnosticsLatencyTracker latencyTracker,
+                             Consumer<String> errorReporter) {
+        this.server = server;
+        this.docUri = docUri;
+        this.docPath = docPath;
+        this.windowMs = windowMs;
+        this.incrementalSync = incrementalSync;
+        this.latencyTracker = latencyTracker;
+        this.errorReporter = errorReporter;
+    }
+
+    /**
+     * Queues one edit. Deltas must turn previousCode into newCode; if they are missing or do not
+     * chain onto the pending burst, the burst is sent as full text.
+     */
+    public synchronized void submit(String previousCode, String newCode, List<TextDelta> deltas, long version) {
+        if (latestCode == null) {
+            baseCode = previousCode;
+        } else if (!latestCode.equals(previousCode)) {
+            deltasUsable = false;
+        }
+        if (deltas.isEmpty()) {
+            deltasUsable = false;
+        }
+        pendingDeltas.addAll(deltas);
+        latestCode = newCode;
+        latestVersion = version;
+
+        if (scheduledFlush == null) {
+            scheduledFlush = worker.schedule(this::flush, windowMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Sends whatever is pending right away, e.g. before a request that needs the server
+     * to see the latest text.
+     * @return Completes once the pending burst has been sent and written
+     */
+    public synchronized CompletableFuture<Void> flushNow() {
+        if (latestCode == null) return CompletableFuture.completedFuture(null);
+        CompletableFuture<Void> result = pendingFlush;
+        // The window's flush would find nothing left to send; it may already be running, then flush skips
+        if (scheduledFlush != null) scheduledFlush.cancel(false);
+        worker.execute(this::flush);
+        return result;
+    }
+
+    /** Flushes anything pending and stops the worker. */
+    public void shutdown(long timeoutMs) {
+        try {
+            flushNow().get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            System.err.println("Pending document changes not flushed: " + e.getMessage());
+        }
+        worker.shutdown();
+    }
+
+    // Runs on the worker thread only
+    private void flush() {
+        String base;
+        String code;
+        long version;
+        List<TextDelta> deltas;
+        boolean useDeltas;
+        CompletableFuture<Void> done;
+        synchronized (this) {
+            if (latestCode == null) return; // already flushed by flushNow
+            base = baseCode;
+            code = latestCode;
+            version = latestVersion;
+            deltas = new ArrayList<>(pendingDeltas);
+            useDeltas = deltasUsable;
+            done = pendingFlush;
+
+            baseCode = null;
+            latestCode = null;
+            pendingDeltas.clear();
+            deltasUsable = true;
+            scheduledFlush = null;
+            pendingFlush = new CompletableFuture<>();
+        }
+
+        try {
+            server.getTextDocumentService().didChange(new DidChangeTextDocumentParams(
+                    new VersionedTextDocumentIdentifier(docUri, (int) version),
+                    buildContentChanges(base, code, deltas, useDeltas)
+            ));
+            writeAtomically(code);
+        } catch (Exception e) {
+            e.printStackTrace();
+            errorReporter.accept("Error saving file: " + e.getMessage());
+        } finally {
+            done.complete(null);
+        }
+    }
+
+    /**
+     * Ranged changes when the server takes them and the burst's deltas are usable and smaller
+     * than the document, otherwise the whole document.
+     */
+    private List<TextDocumentContentChangeEvent> buildContentChanges(String base, String code,
+                                                                    List<TextDelta> deltas, boolean useDeltas) {
+        if (incrementalSync && useDeltas) {
+            List<TextDocumentContentChangeEvent> changes = IncrementalSync.toContentChanges(base, deltas);
+            if (changes != null) {
+                int payload = changes.stream().mapToInt(c -> c.getText().length()).sum();
+                if (payload < code.length()) {
+                    latencyTracker.changeSent(DiagnosticsLatencyTracker.SyncMode.INCREMENTAL, payload);
+                    return changes;
+                }
+            } else {
+                System.err.println("Could not compute ranged changes, sending full document");
+            }
+        }
+        latencyTracker.changeSent(DiagnosticsLatencyTracker.SyncMode.FULL, code.length());
+        return List.of(new TextDocumentContentChangeEvent(code));
+    }
+
+    /** Writes next to the target and renames over it, so readers never see a half-written file. */
+    private void writeAtomically(String code) throws IOException {
+        Path tmp = docPath.resolveSibling(docPath.getFileName() + ".tmp");
+        Files.writeString(tmp, code);
+        try {
+            Files.move(tmp, docPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, docPath, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.botmaker.lsp;
+
+import com.botmaker.state.TextDelta;
+import com.botmaker.validation.LineIndex;
+import org.eclipse.lsp4j.Range;
+import org.eclipse.lsp4j.TextDocumentContentChangeEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Converts text deltas into ranged LSP content changes.
+ * Deltas are sequential, and so are LSP content changes, so each range is computed against
+ * the document as left by the previous change.
+ */
+public final class IncrementalSync {
+
+    private IncrementalSync() {}
+
+    /**
+     * @param before Document text the first delta applies to
+     * @param deltas Sequential deltas from the edit
+     * @return Ranged content changes, or null if a delta does not fit the text (caller falls back to full sync)
+     */
+    public static List<TextDocumentContentChangeEvent> toContentChanges(String before, List<TextDelta> deltas) {
+        if (deltas.isEmpty()) return null;
+
+        // Indexed once; each delta then adjusts the line starts instead of rescanning the text
+        LineIndex lines = new LineIndex(before);
+        List<TextDocumentContentChangeEvent> changes = new ArrayList<>(deltas.size());
+        for (int i = 0; i < deltas.size(); i++) {
+            TextDelta delta = deltas.get(i);
+            int start = delta.offset();
+            int end = start + delta.length();
+            if (start < 0 || end > lines.getLength() || start > end) return null;
+
+            Range range = new Range(lines.getPosition(start), lines.getPosition(end));
+            changes.add(new TextDocumentContentChangeEvent(range, delta.replacement()));
+            lines = lines.replace(start, end, delta.replacement(),
+                    charAt(before, deltas, i, start - 1), charAt(before, deltas, i, end));
+        }
+        return changes;
+    }
+
+    /**
+     * Character at an offset of the text left by the first {@code applied} deltas (0 outside it),
+     * found by mapping the offset back through them rather than building that text.
+     */
+    static char charAt(String before, List<TextDelta> deltas, int applied, int offset) {
+        for (int i = applied - 1; i >= 0 && offset >= 0; i--) {
+            TextDelta delta = deltas.get(i);
+            if (offset < delta.offset()) continue;
+            int inReplacement = offset - delta.offset();
+            if (inReplacement < delta.replacement().length()) return delta.replacement().charAt(inReplacement);
+            offset -= delta.sizeChange();
+        }
+        return offset >= 0 && offset < before.length() ? before.charAt(offset) : 0;
+    }
+}
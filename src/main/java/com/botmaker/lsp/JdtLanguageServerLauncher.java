@@ -23,6 +23,7 @@ public class JdtLanguageServerLauncher {
 
     private final Process process;
     private final LanguageServer server;
+    private final ServerCapabilities serverCapabilities;
 
     public JdtLanguageServerLauncher(
             Path jdtlsPath,
@@ -140,6 +141,7 @@ public class JdtLanguageServerLauncher {
         // Initialize the server
         InitializeResult result = server.initialize(init).get();
         System.out.println("Server initialized: " + result.getCapabilities());
+        serverCapabilities = result.getCapabilities();
 
         // Send initialized notification
         server.initialized(new InitializedParams());
@@ -149,6 +151,19 @@ public class JdtLanguageServerLauncher {
         return server;
     }
 
+    /**
+     * How the server wants didChange notifications, as announced in its initialize result.
+     * Defaults to Full when the server did not say.
+     */
+    public TextDocumentSyncKind getTextDocumentSyncKind() {
+        if (serverCapabilities == null || serverCapabilities.getTextDocumentSync() == null) {
+            return TextDocumentSyncKind.Full;
+        }
+        var sync = serverCapabilities.getTextDocumentSync();
+        TextDocumentSyncKind kind = sync.isLeft() ? sync.getLeft() : sync.getRight().getChange();
+        return kind != null ? kind : TextDocumentSyncKind.Full;
+    }
+
     public void stop() {
         try { server.shutdown().get(); } catch (Exception ignored) {}
         server.exit();
@@ -1,7 +1,5 @@
 package com.botmaker.parser;
 
-import com.botmaker.core.BodyBlock;
-import com.botmaker.core.StatementBlock;
 import com.botmaker.ui.AddableBlock;
 import com.botmaker.ui.AddableExpression;
 import com.botmaker.util.DefaultNames;
@@ -9,43 +7,41 @@ import com.botmaker.util.TypeManager;
 
 import org.eclipse.jdt.core.dom.*;
 import org.eclipse.jdt.core.dom.rewrite.*;
-import org.eclipse.jface.text.Document;
-import org.eclipse.jface.text.IDocument;
-import org.eclipse.text.edits.TextEdit;
+import org.eclipse.text.edits.ReplaceEdit;
 
 import java.util.List;
 
+/**
+ * Records source changes on an {@link ASTRewrite}. Nothing is applied here: callers go through
+ * an {@link EditTransaction}, which collects any number of these changes against one
+ * CompilationUnit and applies them in a single rewrite pass.
+ * Methods return false when there is nothing to change.
+ */
 public class AstRewriter {
 
     /**
      * Moves a statement from one position to another, potentially across different bodies.
-     * @param cu The compilation unit
-     * @param originalCode The current source code
-     * @param blockToMove The StatementBlock to move
-     * @param sourceBody The BodyBlock containing the statement (can be same as targetBody)
-     * @param targetBody The BodyBlock where the statement should be moved to
-     * @param targetIndex The index in the target body where the statement should be inserted
-     * @return The updated source code
+     * @param rewriter The rewrite of the current transaction
+     * @param statement The statement to move
+     * @param sourceBlock The block containing the statement (can be same as targetBlock)
+     * @param targetBlock The block where the statement should be moved to
+     * @param targetIndex The index in the target block where the statement should be inserted
+     * @return Whether a change was recorded
      */
-    public String moveStatement(CompilationUnit cu, String originalCode,
-                                StatementBlock blockToMove, BodyBlock sourceBody,
-                                BodyBlock targetBody, int targetIndex) {
-        AST ast = cu.getAST();
-        ASTRewrite rewriter = ASTRewrite.create(ast);
-
-        Statement statement = (Statement) blockToMove.getAstNode();
-        Block sourceBlock = (Block) sourceBody.getAstNode();
-        Block targetBlock = (Block) targetBody.getAstNode();
+    public boolean moveStatement(ASTRewrite rewriter,
+                                Statement statement, Block sourceBlock,
+                                Block targetBlock, int targetIndex) {
+        AST ast = rewriter.getAST();
 
         // Get the list rewriters for both source and target
         ListRewrite sourceListRewrite = rewriter.getListRewrite(sourceBlock, Block.STATEMENTS_PROPERTY);
         ListRewrite targetListRewrite = rewriter.getListRewrite(targetBlock, Block.STATEMENTS_PROPERTY);
 
         // If moving to the exact same position (same body, same index), do nothing
-        if (sourceBody == targetBody) {
+        if (sourceBlock == targetBlock) {
             int currentIndex = sourceBlock.statements().indexOf(statement);
             if (currentIndex == targetIndex) {
-                return originalCode;
+                return false;
             }
         }
 
@@ -54,22 +50,27 @@ public class AstRewriter {
 
         // Remove from source and insert at target
         sourceListRewrite.remove(statement, null);
-        targetListRewrite.insertAt(copiedStatement, targetIndex, null);
-
-        IDocument document = new Document(originalCode);
-        try {
-            TextEdit edits = rewriter.rewriteAST(document, null);
-            edits.apply(document);
-            return document.get();
-        } catch (Exception e) {
-            e.printStackTrace();
-            return originalCode;
+        insertAtOriginalIndex(targetListRewrite, copiedStatement, targetIndex);
+        return true;
+    }
+
+    /**
+     * Inserts {@code node} at {@code originalIndex} of the list as it was before this transaction.
+     * ListRewrite.insertAt counts nodes inserted by earlier edits of the same rewrite, so the
+     * index is mapped to the original node it precedes instead; inserts at the same index keep
+     * the order they were made in.
+     */
+    private static void insertAtOriginalIndex(ListRewrite listRewrite, ASTNode node, int originalIndex) {
+        List<?> original = listRewrite.getOriginalList();
+        if (originalIndex < 0 || originalIndex >= original.size()) {
+            listRewrite.insertLast(node, null);
+        } else {
+            listRewrite.insertBefore(node, (ASTNode) original.get(originalIndex), null);
         }
     }
 
-    public String addStatement(CompilationUnit cu, String originalCode, BodyBlock targetBody, AddableBlock type, int index) {
-        AST ast = cu.getAST();
-        ASTRewrite rewriter = ASTRewrite.create(ast);
+    public boolean addStatement(ASTRewrite rewriter, Block targetAstBlock, AddableBlock type, int index) {
+        AST ast = rewriter.getAST();
 
         if (type == AddableBlock.COMMENT) {
             // SPECIAL HANDLING FOR COMMENTS
@@ -77,98 +78,59 @@ public class AstRewriter {
             // ASTNode.EMPTY_STATEMENT is passed as a type hint for formatting.
             Statement commentPlaceholder = (Statement) rewriter.createStringPlaceholder("// Comment", ASTNode.EMPTY_STATEMENT);
 
-            Block targetAstBlock = (Block) targetBody.getAstNode();
             ListRewrite listRewrite = rewriter.getListRewrite(targetAstBlock, Block.STATEMENTS_PROPERTY);
-            listRewrite.insertAt(commentPlaceholder, index, null);
+            insertAtOriginalIndex(listRewrite, commentPlaceholder, index);
         } else {
             // Standard Statement Handling
             Statement newStatement = createDefaultStatement(ast, type);
-            if (newStatement == null) return originalCode;
+            if (newStatement == null) return false;
 
-            Block targetAstBlock = (Block) targetBody.getAstNode();
             ListRewrite listRewrite = rewriter.getListRewrite(targetAstBlock, Block.STATEMENTS_PROPERTY);
-            listRewrite.insertAt(newStatement, index, null);
+            insertAtOriginalIndex(listRewrite, newStatement, index);
         }
 
-        return applyRewrite(rewriter, originalCode);
+        return true;
     }
 
-    private String applyRewrite(ASTRewrite rewriter, String originalCode) {
-        IDocument document = new Document(originalCode);
-        try {
-            TextEdit edits = rewriter.rewriteAST(document, null);
-            edits.apply(document);
-            return document.get();
-        } catch (Exception e) {
-            e.printStackTrace();
-            return originalCode;
-        }
-    }
-
-    public String replaceExpression(CompilationUnit cu, String originalCode, Expression toReplace, com.botmaker.ui.AddableExpression type) {
-        AST ast = cu.getAST();
-        ASTRewrite rewriter = ASTRewrite.create(ast);
+    public boolean replaceExpression(ASTRewrite rewriter, Expression toReplace, com.botmaker.ui.AddableExpression type) {
+        AST ast = rewriter.getAST();
 
         Expression newExpression = createDefaultExpression(ast, type);
         if (newExpression == null) {
-            return originalCode;
+            return false;
         }
 
         rewriter.replace(toReplace, newExpression, null);
-
-        IDocument document = new Document(originalCode);
-        try {
-            TextEdit edits = rewriter.rewriteAST(document, null);
-            edits.apply(document);
-            return document.get();
-        } catch (Exception e) {
-            e.printStackTrace();
-            return originalCode;
-        }
+        return true;
     }
 
-    public String updateComment(String originalCode, Comment commentNode, String newText) {
-        try {
-            IDocument document = new Document(originalCode);
-
-            String replacement;
-            if (newText.contains("\n")) {
-                // Use Block Comment for multi-line text
-                replacement = "/* " + newText + " */";
-            } else {
-                // Use Line Comment for single-line text
-                replacement = "// " + newText;
-            }
-
-            // Directly replace the text range in the document
-            document.replace(commentNode.getStartPosition(), commentNode.getLength(), replacement);
-
-            return document.get();
-        } catch (Exception e) {
-            e.printStackTrace();
-            return originalCode;
+    /**
+     * Comments are not part of the statement tree, so they are edited as plain text ranges.
+     */
+    public ReplaceEdit updateComment(Comment commentNode, String newText) {
+        String replacement;
+        if (newText.contains("\n")) {
+            // Use Block Comment for multi-line text
+            replacement = "/* " + newText + " */";
+        } else {
+            // Use Line Comment for single-line text
+            replacement = "// " + newText;
         }
+
+        // Directly replace the text range in the document
+        return new ReplaceEdit(commentNode.getStartPosition(), commentNode.getLength(), replacement);
     }
 
     /**
      * Deletes a comment node by removing its text range.
      */
-    public String deleteComment(String originalCode, Comment commentNode) {
-        try {
-            IDocument document = new Document(originalCode);
-            // Replace content with empty string
-            document.replace(commentNode.getStartPosition(), commentNode.getLength(), "");
-            return document.get();
-        } catch (Exception e) {
-            e.printStackTrace();
-            return originalCode;
-        }
+    public ReplaceEdit deleteComment(Comment commentNode) {
+        return new ReplaceEdit(commentNode.getStartPosition(), commentNode.getLength(), "");
     }
 
 
-    public String replaceLiteral(CompilationUnit cu, String originalCode, Expression toReplace, String newLiteralValue) {
-        AST ast = cu.getAST();
-        ASTRewrite rewriter = ASTRewrite.create(ast);
+    public boolean replaceLiteral(ASTRewrite rewriter, Expression toReplace, String newLiteralValue) {
+        AST ast = rewriter.getAST();
 
         Expression newExpression;
         if (toReplace instanceof StringLiteral) {
@@ -180,131 +142,64 @@ public class AstRewriter {
         } else if (toReplace instanceof BooleanLiteral) {
             newExpression = ast.newBooleanLiteral(Boolean.parseBoolean(newLiteralValue));
         } else {
-            return originalCode;
+            return false;
         }
 
         rewriter.replace(toReplace, newExpression, null);
-
-        IDocument document = new Document(originalCode);
-        try {
-            TextEdit edits = rewriter.rewriteAST(document, null);
-            edits.apply(document);
-            return document.get();
-        } catch (Exception e) {
-            e.printStackTrace();
-            return originalCode;
-        }
+        return true;
     }
 
-    public String addArgumentToMethodInvocation(CompilationUnit cu, String originalCode, MethodInvocation mi, Expression newArgument) {
-        AST ast = cu.getAST();
-        ASTRewrite rewriter = ASTRewrite.create(ast);
+    public boolean addArgumentToMethodInvocation(ASTRewrite rewriter, MethodInvocation mi, Expression newArgument) {
+        AST ast = rewriter.getAST();
         ListRewrite listRewrite = rewriter.getListRewrite(mi, MethodInvocation.ARGUMENTS_PROPERTY);
         listRewrite.insertLast(newArgument, null);
-
-        IDocument document = new Document(originalCode);
-        try {
-            TextEdit edits = rewriter.rewriteAST(document, null);
-            edits.apply(document);
-            return document.get();
-        } catch (Exception e) {
-            e.printStackTrace();
-            return originalCode;
-        }
+        return true;
     }
 
-    public String replaceSimpleName(CompilationUnit cu, String originalCode, SimpleName toReplace, String newName) {
-        AST ast = cu.getAST();
-        ASTRewrite rewriter = ASTRewrite.create(ast);
+    public boolean replaceSimpleName(ASTRewrite rewriter, SimpleName toReplace, String newName) {
+        AST ast = rewriter.getAST();
         SimpleName newSimpleName = ast.newSimpleName(newName);
         rewriter.replace(toReplace, newSimpleName, null);
-
-        IDocument document = new Document(originalCode);
-        try {
-            TextEdit edits = rewriter.rewriteAST(document, null);
-            edits.apply(document);
-            return document.get();
-        } catch (Exception e) {
-            e.printStackTrace();
-            return originalCode;
-        }
+        return true;
     }
 
-    public String deleteNode(CompilationUnit cu, String originalCode, ASTNode toDelete) {
-        ASTRewrite rewriter = ASTRewrite.create(cu.getAST());
+    public boolean deleteNode(ASTRewrite rewriter, ASTNode toDelete) {
         rewriter.remove(toDelete, null);
-
-        IDocument document = new Document(originalCode);
-        try {
-            TextEdit edits = rewriter.rewriteAST(document, null);
-            edits.apply(document);
-            return document.get();
-        } catch (Exception e) {
-            e.printStackTrace();
-            return originalCode;
-        }
+        return true;
     }
 
-    public String deleteElseFromIfStatement(CompilationUnit cu, String originalCode, IfStatement ifStatement) {
-        ASTRewrite rewriter = ASTRewrite.create(cu.getAST());
+    public boolean deleteElseFromIfStatement(ASTRewrite rewriter, IfStatement ifStatement) {
         if (ifStatement.getElseStatement() != null) {
             rewriter.remove(ifStatement.getElseStatement(), null);
         } else {
-            return originalCode;
-        }
-        IDocument document = new Document(originalCode);
-        try {
-            TextEdit edits = rewriter.rewriteAST(document, null);
-            edits.apply(document);
-            return document.get();
-        } catch (Exception e) {
-            e.printStackTrace();
-            return originalCode;
+            return false;
         }
+        return true;
     }
 
-    public String convertElseToElseIf(CompilationUnit cu, String originalCode, IfStatement ifStatement) {
-        AST ast = cu.getAST();
-        ASTRewrite rewriter = ASTRewrite.create(ast);
+    public boolean convertElseToElseIf(ASTRewrite rewriter, IfStatement ifStatement) {
+        AST ast = rewriter.getAST();
         Statement elseStatement = ifStatement.getElseStatement();
         if (elseStatement == null || elseStatement.getNodeType() != ASTNode.BLOCK) {
-            return originalCode;
+            return false;
         }
         IfStatement newElseIf = ast.newIfStatement();
         newElseIf.setExpression(ast.newBooleanLiteral(true));
         newElseIf.setThenStatement((Block) ASTNode.copySubtree(ast, elseStatement));
         rewriter.replace(elseStatement, newElseIf, null);
-        IDocument document = new Document(originalCode);
-        try {
-            TextEdit edits = rewriter.rewriteAST(document, null);
-            edits.apply(document);
-            return document.get();
-        } catch (Exception e) {
-            e.printStackTrace();
-            return originalCode;
-        }
+        return true;
     }
 
-    public String addElseToIfStatement(CompilationUnit cu, String originalCode, IfStatement ifStatement) {
-        AST ast = cu.getAST();
-        ASTRewrite rewriter = ASTRewrite.create(ast);
+    public boolean addElseToIfStatement(ASTRewrite rewriter, IfStatement ifStatement) {
+        AST ast = rewriter.getAST();
 
         if (ifStatement.getElseStatement() == null) {
             Block elseBlock = ast.newBlock();
             rewriter.set(ifStatement, IfStatement.ELSE_STATEMENT_PROPERTY, elseBlock, null);
         } else {
-            return originalCode;
-        }
-
-        IDocument document = new Document(originalCode);
-        try {
-            TextEdit edits = rewriter.rewriteAST(document, null);
-            edits.apply(document);
-            return document.get();
-        } catch (Exception e) {
-            e.printStackTrace();
-            return originalCode;
+            return false;
         }
+        return true;
     }
 
     // ADD THIS METHOD TO AstRewriter.java - replaces the existing createDefaultExpression
@@ -613,20 +508,18 @@ public class AstRewriter {
         }
     }
 
-    public String addElementToArrayInitializer(
-            CompilationUnit cu,
-            String originalCode,
+    public boolean addElementToArrayInitializer(
+            ASTRewrite rewriter,
             ArrayInitializer arrayInit,
             com.botmaker.ui.AddableExpression type,
             int insertIndex) {
 
-        AST ast = cu.getAST();
-        ASTRewrite rewriter = ASTRewrite.create(ast);
+        AST ast = rewriter.getAST();
 
         // Create the new expression based on type
         Expression newElement = createDefaultExpression(ast, type);
         if (newElement == null) {
-            return originalCode;
+            return false;
         }
 
         // Use ListRewrite to insert the element
@@ -635,29 +528,27 @@ public class AstRewriter {
                 ArrayInitializer.EXPRESSIONS_PROPERTY
         );
 
-        listRewrite.insertAt(newElement, insertIndex, null);
+        insertAtOriginalIndex(listRewrite, newElement, insertIndex);
 
-        return applyRewrite(rewriter, originalCode);
+        return true;
     }
 
     /**
      * Deletes an element from an ArrayInitializer at the specified index
      */
-    public String deleteElementFromArrayInitializer(
-            CompilationUnit cu,
-            String originalCode,
+    public boolean deleteElementFromArrayInitializer(
+            ASTRewrite rewriter,
             ArrayInitializer arrayInit,
             int elementIndex) {
 
-        AST ast = cu.getAST();
-        ASTRewrite rewriter = ASTRewrite.create(ast);
+        AST ast = rewriter.getAST();
 
         // Get the list of expressions
         @SuppressWarnings("unchecked")
         List<Expression> expressions = arrayInit.expressions();
 
         if (elementIndex < 0 || elementIndex >= expressions.size()) {
-            return originalCode; // Invalid index
+            return false; // Invalid index
         }
 
         Expression toRemove = expressions.get(elementIndex);
@@ -670,7 +561,7 @@ public class AstRewriter {
 
         listRewrite.remove(toRemove, null);
 
-        return applyRewrite(rewriter, originalCode);
+        return true;
     }
 
 
@@ -700,9 +591,8 @@ public class AstRewriter {
     }
 // [Inside AstRewriter class]
 
-    public String replaceAssignmentOperator(CompilationUnit cu, String originalCode, Assignment assignment, Assignment.Operator newOp) {
-        AST ast = cu.getAST();
-        ASTRewrite rewriter = ASTRewrite.create(ast);
+    public boolean replaceAssignmentOperator(ASTRewrite rewriter, Assignment assignment, Assignment.Operator newOp) {
+        AST ast = rewriter.getAST();
 
         // Create a new assignment with the same operands but new operator
         Assignment newAssignment = ast.newAssignment();
@@ -713,22 +603,12 @@ public class AstRewriter {
         newAssignment.setOperator(newOp);
 
         rewriter.replace(assignment, newAssignment, null);
-
-        org.eclipse.jface.text.IDocument document = new org.eclipse.jface.text.Document(originalCode);
-        try {
-            org.eclipse.text.edits.TextEdit edits = rewriter.rewriteAST(document, null);
-            edits.apply(document);
-            return document.get();
-        } catch (Exception e) {
-            e.printStackTrace();
-            return originalCode;
-        }
+        return true;
     }
 
     // Also handle Prefix expressions (++ / --)
-    public String replacePrefixOperator(CompilationUnit cu, String originalCode, PrefixExpression prefix, PrefixExpression.Operator newOp) {
-        AST ast = cu.getAST();
-        ASTRewrite rewriter = ASTRewrite.create(ast);
+    public boolean replacePrefixOperator(ASTRewrite rewriter, PrefixExpression prefix, PrefixExpression.Operator newOp) {
+        AST ast = rewriter.getAST();
 
         PrefixExpression newPrefix = ast.newPrefixExpression();
         newPrefix.setOperand((Expression)
@@ -736,22 +616,12 @@ public class AstRewriter {
         newPrefix.setOperator(newOp);
 
         rewriter.replace(prefix, newPrefix, null);
-
-        org.eclipse.jface.text.IDocument document = new org.eclipse.jface.text.Document(originalCode);
-        try {
-            org.eclipse.text.edits.TextEdit edits = rewriter.rewriteAST(document, null);
-            edits.apply(document);
-            return document.get();
-        } catch (Exception e) {
-            e.printStackTrace();
-            return originalCode;
-        }
+        return true;
     }
 
     // Also handle Postfix expressions (variable++ / variable--)
-    public String replacePostfixOperator(CompilationUnit cu, String originalCode, PostfixExpression postfix, PostfixExpression.Operator newOp) {
-        AST ast = cu.getAST();
-        ASTRewrite rewriter = ASTRewrite.create(ast);
+    public boolean replacePostfixOperator(ASTRewrite rewriter, PostfixExpression postfix, PostfixExpression.Operator newOp) {
+        AST ast = rewriter.getAST();
 
         PostfixExpression newPostfix = ast.newPostfixExpression();
         newPostfix.setOperand((Expression)
@@ -759,20 +629,10 @@ public class AstRewriter {
         newPostfix.setOperator(newOp);
 
         rewriter.replace(postfix, newPostfix, null);
-
-        org.eclipse.jface.text.IDocument document = new org.eclipse.jface.text.Document(originalCode);
-        try {
-            org.eclipse.text.edits.TextEdit edits = rewriter.rewriteAST(document, null);
-            edits.apply(document);
-            return document.get();
-        } catch (Exception e) {
-            e.printStackTrace();
-            return originalCode;
-        }
+        return true;
     }
-    public String replaceVariableType(CompilationUnit cu, String originalCode, VariableDeclarationStatement varDecl, String newTypeName) {
-        AST ast = cu.getAST();
-        ASTRewrite rewriter = ASTRewrite.create(ast);
+    public boolean replaceVariableType(ASTRewrite rewriter, VariableDeclarationStatement varDecl, String newTypeName) {
+        AST ast = rewriter.getAST();
 
         Type newType = TypeManager.createTypeNode(ast, newTypeName);
         rewriter.replace(varDecl.getType(), newType, null);
@@ -818,15 +678,6 @@ public class AstRewriter {
                 rewriter.replace(currentInitializer, newInitializer, null);
             }
         }
-
-        IDocument document = new Document(originalCode);
-        try {
-            TextEdit edits = rewriter.rewriteAST(document, null);
-            edits.apply(document);
-            return document.get();
-        } catch (Exception e) {
-            e.printStackTrace();
-            return originalCode;
-        }
+        return true;
     }
 }
\ No newline at end of file
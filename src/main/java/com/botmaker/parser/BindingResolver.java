@@ -0,0 +1,69 @@
+package com.botmaker.parser;
+
+import com.botmaker.core.BindingAwareBlock;
+import com.botmaker.core.CodeBlock;
+import org.eclipse.jdt.core.dom.*;
+
+import java.util.*;
+
+/**
+ * Second parsing phase: parses the same source with bindings and pairs every
+ * binding-aware block of the structural tree with its resolved counterpart.
+ * Holds no per-parse state, so it can run on its own worker next to BlockFactory.
+ */
+public class BindingResolver {
+
+    private final ParserEnvironment parserEnvironment;
+    private final ParseCache parseCache;
+
+    public BindingResolver(ParserEnvironment parserEnvironment, ParseCache parseCache) {
+        this.parserEnvironment = parserEnvironment;
+        this.parseCache = parseCache;
+    }
+
+    public Map<BindingAwareBlock, ASTNode> resolve(String javaCode, CompilationUnit structuralUnit,
+                                                   Map<ASTNode, CodeBlock> nodeToBlockMap) {
+        Map<BindingAwareBlock, ASTNode> resolved = new IdentityHashMap<>();
+        if (structuralUnit == null) return resolved;
+
+        CompilationUnit boundUnit = parseCache.getBound(javaCode);
+        if (boundUnit == null) {
+            ASTParser parser = parserEnvironment.newParser("Demo.java", true);
+            parser.setSource(javaCode.toCharArray());
+            boundUnit = (CompilationUnit) parser.createAST(null);
+            parseCache.putBound(javaCode, boundUnit);
+        }
+
+        List<ASTNode> structuralNodes = collectNodes(structuralUnit);
+        List<ASTNode> boundNodes = collectNodes(boundUnit);
+        if (structuralNodes.size() != boundNodes.size()) {
+            System.err.println("Binding pass skipped: trees differ for the same source");
+            return resolved;
+        }
+
+        for (int i = 0; i < structuralNodes.size(); i++) {
+            ASTNode structuralNode = structuralNodes.get(i);
+            ASTNode boundNode = boundNodes.get(i);
+            if (structuralNode.getNodeType() != boundNode.getNodeType()) {
+                System.err.println("Binding pass skipped: trees differ for the same source");
+                return new IdentityHashMap<>();
+            }
+            CodeBlock block = nodeToBlockMap.get(structuralNode);
+            if (block instanceof BindingAwareBlock) {
+                resolved.put((BindingAwareBlock) block, boundNode);
+            }
+        }
+        return resolved;
+    }
+
+    private static List<ASTNode> collectNodes(ASTNode root) {
+        List<ASTNode> nodes = new ArrayList<>();
+        root.accept(new ASTVisitor(true) {
+            @Override
+            public void preVisit(ASTNode node) {
+                nodes.add(node);
+            }
+        });
+        return nodes;
+    }
+}
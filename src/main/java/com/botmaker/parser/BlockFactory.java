@@ -10,21 +10,65 @@ import java.util.*;
 
 public class BlockFactory {
 
+    private final ParserEnvironment parserEnvironment;
+    private final ParseCache parseCache;
+
+    // State of the running conversion; only touched by the thread calling convert
     private CompilationUnit ast;
     private String currentSourceCode;
+    private SourceHashes sourceHashes;
     private List<Comment> allComments;
+    private boolean markNewIdentifiers;
+    private Reconciliation base;
+    private Map<ASTNode, CodeBlock> syntheticBlocks = new HashMap<>();
+    private Map<SourceKey, Integer> reuseCursor = new HashMap<>();
+    private List<Rebind> rebinds = new ArrayList<>();
+    private List<BodyBlock> builtBodies = new ArrayList<>();
+    private int reusedBlockCount;
+    private final BlockIdentity identity = new BlockIdentity();
+
+    // Blocks of the installed tree, indexed by the exact source of their statement (or comment),
+    // so unchanged subtrees keep their blocks and cached UI nodes. Replaced as a whole by commit.
+    private volatile Reconciliation committed = Reconciliation.EMPTY;
+    private volatile int lastReusedBlockCount;
+
+    // Set on the FX thread around an edit; read there when the edit requests its refresh
     private boolean markNewIdentifiersAsUnedited = false;
 
-    public MainBlock convert(String javaCode, Map<ASTNode, CodeBlock> nodeToBlockMap, BlockDragAndDropManager manager) {
+    public BlockFactory(ParserEnvironment parserEnvironment, ParseCache parseCache) {
+        this.parserEnvironment = parserEnvironment;
+        this.parseCache = parseCache;
+    }
+
+    /**
+     * Builds the block tree for {@code javaCode}. Blocks of the installed tree may be reused, but
+     * nothing they (or this factory) hold is changed here: rebinding reused blocks to the new AST,
+     * linking statements to their bodies and remembering the tree for the next conversion all
+     * happen in {@link #commit}, once the caller installs the result.
+     * @param markNewIdentifiers whether identifiers created by this conversion start out unedited,
+     *        as taken by the request from {@link #takeMarkNewIdentifiersAsUnedited()}
+     */
+    public Conversion convert(String javaCode, boolean markNewIdentifiers,
+                              Map<ASTNode, CodeBlock> nodeToBlockMap, BlockDragAndDropManager manager) {
+        this.base = committed;
+        this.markNewIdentifiers = markNewIdentifiers;
         this.currentSourceCode = javaCode;
+        this.sourceHashes = new SourceHashes(javaCode);
+        this.syntheticBlocks = new HashMap<>();
+        this.reuseCursor = new HashMap<>();
+        this.rebinds = new ArrayList<>();
+        this.builtBodies = new ArrayList<>();
+        this.reusedBlockCount = 0;
         try {
-            ASTParser parser = ASTParser.newParser(AST.getJLSLatest());
-            parser.setSource(javaCode.toCharArray());
-            parser.setResolveBindings(true);
-            parser.setKind(ASTParser.K_COMPILATION_UNIT);
-            parser.setUnitName("Demo.java");
-            parser.setEnvironment(null, null, null, true);
-            this.ast = (CompilationUnit) parser.createAST(null);
+            this.ast = parseCache.getStructural(javaCode);
+            if (this.ast == null) {
+                // Structural parse only: bindings are resolved by BindingResolver on its own worker
+                ASTParser parser = parserEnvironment.newParser("Demo.java", false);
+                parser.setSource(javaCode.toCharArray());
+                this.ast = (CompilationUnit) parser.createAST(null);
+                parseCache.putStructural(javaCode, this.ast);
+            }
+            identity.begin(base.source(), javaCode, predictReusedIds(), base.anchors());
 
             this.allComments = new ArrayList<>();
             for (Object obj : ast.getCommentList()) {
@@ -36,9 +80,9 @@ public class BlockFactory {
             MainMethodVisitor visitor = new MainMethodVisitor();
             ast.accept(visitor);
 
-            return visitor.getMainMethodDeclaration()
+            MainBlock root = visitor.getMainMethodDeclaration()
                     .map(mainMethodDecl -> {
-                        MainBlock mainBlock = new MainBlock(BlockIdPrefix.generate(BlockIdPrefix.MAIN, mainMethodDecl), mainMethodDecl);
+                        MainBlock mainBlock = new MainBlock(identity.generate(BlockIdPrefix.MAIN, mainMethodDecl), mainMethodDecl);
                         nodeToBlockMap.put(mainMethodDecl, mainBlock);
                         visitor.getMainMethodBody().ifPresent(bodyAstNode -> {
                             BodyBlock bodyBlock = parseBodyBlock(bodyAstNode, nodeToBlockMap, manager);
@@ -47,24 +91,290 @@ public class BlockFactory {
                         return mainBlock;
                     })
                     .orElse(null);
+
+            Map<ASTNode, CodeBlock> allBlocks = new HashMap<>(nodeToBlockMap);
+            allBlocks.putAll(syntheticBlocks);
+            Reconciliation next = remember(nodeToBlockMap, identity.end(allBlocks));
+            return new Conversion(root, ast, base, next, rebinds, builtBodies, reusedBlockCount);
         } finally {
-            setMarkNewIdentifiersAsUnedited(false);
+            this.base = null;
+            this.sourceHashes = null;
+        }
+    }
+
+    /**
+     * Installs a conversion on the FX thread: reused blocks move to their new AST nodes, new
+     * bodies link their statements, and the tree becomes the base for the next conversion.
+     * @return false if another tree was installed (or the state reset) after this conversion
+     *         started; its reuse decisions are stale then and nothing is applied
+     */
+    public boolean commit(Conversion conversion) {
+        if (conversion.base != committed) return false;
+        for (Rebind rebind : conversion.rebinds) {
+            rebind.block().rebind(rebind.node());
+        }
+        for (BodyBlock body : conversion.bodies) {
+            body.linkStatements();
+        }
+        committed = conversion.next;
+        lastReusedBlockCount = conversion.reusedBlockCount;
+        return true;
+    }
+
+    /**
+     * Drops every block kept for reuse, so the next conversion rebuilds the whole tree.
+     */
+    public void resetReconciliation() {
+        committed = Reconciliation.EMPTY;
+    }
+
+    /** Number of blocks carried over from the previous tree by the last installed conversion. */
+    public int getReusedBlockCount() {
+        return lastReusedBlockCount;
+    }
+
+    /** A converted block tree that is not installed yet. */
+    public static final class Conversion {
+        private final MainBlock rootBlock;
+        private final CompilationUnit compilationUnit;
+        private final Reconciliation base;
+        private final Reconciliation next;
+        private final List<Rebind> rebinds;
+        private final List<BodyBlock> bodies;
+        private final int reusedBlockCount;
+
+        private Conversion(MainBlock rootBlock, CompilationUnit compilationUnit, Reconciliation base, Reconciliation next,
+                           List<Rebind> rebinds, List<BodyBlock> bodies, int reusedBlockCount) {
+            this.rootBlock = rootBlock;
+            this.compilationUnit = compilationUnit;
+            this.base = base;
+            this.next = next;
+            this.rebinds = rebinds;
+            this.bodies = bodies;
+            this.reusedBlockCount = reusedBlockCount;
+        }
+
+        public MainBlock getRootBlock() { return rootBlock; }
+
+        public CompilationUnit getCompilationUnit() { return compilationUnit; }
+    }
+
+    private record Rebind(CodeBlock block, ASTNode node) {}
+
+    /** Everything a conversion reuses from the installed tree; never modified once built. */
+    private record Reconciliation(
+            String source,
+            CompilationUnit ast,
+            Map<ASTNode, CodeBlock> nodeToBlockMap,
+            Map<ASTNode, CodeBlock> syntheticBlocks,
+            Map<SourceKey, List<StatementBlock>> statements,
+            Map<SourceKey, List<CommentBlock>> comments,
+            Map<String, BlockIdentity.Anchor> anchors) {
+        static final Reconciliation EMPTY = new Reconciliation(
+                null, null, Map.of(), Map.of(), Map.of(), Map.of(), Map.of());
+    }
+
+    private Reconciliation remember(Map<ASTNode, CodeBlock> nodeToBlockMap, Map<String, BlockIdentity.Anchor> anchors) {
+        Map<SourceKey, List<StatementBlock>> statements = new HashMap<>();
+        Map<SourceKey, List<CommentBlock>> comments = new HashMap<>();
+
+        for (Map.Entry<ASTNode, CodeBlock> entry : nodeToBlockMap.entrySet()) {
+            ASTNode node = entry.getKey();
+            CodeBlock block = entry.getValue();
+            if (block instanceof CommentBlock) {
+                comments.computeIfAbsent(sourceOf(node), k -> new ArrayList<>()).add((CommentBlock) block);
+            } else if (isReusableStatement(node, block)) {
+                statements.computeIfAbsent(sourceOf(node), k -> new ArrayList<>()).add((StatementBlock) block);
+            }
+        }
+        return new Reconciliation(currentSourceCode, ast, new HashMap<>(nodeToBlockMap), syntheticBlocks,
+                statements, comments, anchors);
+    }
+
+    /**
+     * Only statements sitting directly in a body are reused; bodies and switch cases are
+     * rendered by their parents and are always rebuilt.
+     */
+    private boolean isReusableStatement(ASTNode node, CodeBlock block) {
+        return block instanceof StatementBlock
+                && !(block instanceof BodyBlock)
+                && !(block instanceof SwitchBlock.SwitchCaseBlock)
+                && (node.getLocationInParent() == Block.STATEMENTS_PROPERTY
+                    || node.getLocationInParent() == SwitchStatement.STATEMENTS_PROPERTY);
+    }
+
+    /**
+     * IDs of previous blocks whose statement text still occurs in the new tree. Those blocks
+     * will be reused, so their IDs must not be handed to new blocks by anchoring.
+     */
+    private Set<String> predictReusedIds() {
+        Map<SourceKey, Integer> occurrences = new HashMap<>();
+        ast.accept(new ASTVisitor() {
+            @Override
+            public void preVisit(ASTNode node) {
+                if (node.getLocationInParent() == Block.STATEMENTS_PROPERTY
+                        || node.getLocationInParent() == SwitchStatement.STATEMENTS_PROPERTY) {
+                    occurrences.merge(sourceOf(node), 1, Integer::sum);
+                }
+            }
+        });
+
+        Set<String> ids = new HashSet<>();
+        for (Map.Entry<SourceKey, List<StatementBlock>> entry : base.statements().entrySet()) {
+            int remaining = occurrences.getOrDefault(entry.getKey(), 0);
+            for (StatementBlock block : entry.getValue()) {
+                if (remaining-- <= 0) break;
+                for (ASTNode node : collectNodes(block.getAstNode())) {
+                    CodeBlock nested = base.nodeToBlockMap().get(node);
+                    if (nested != null) ids.add(nested.getId());
+                }
+            }
+        }
+        return ids;
+    }
+
+    private SourceKey sourceOf(ASTNode node) {
+        return sourceHashes.key(node.getStartPosition(), node.getLength());
+    }
+
+    /**
+     * The source text of a node, compared without copying it out: the hash comes from the
+     * prefix hashes of its source and equality compares the two regions in place. Keys of
+     * different sources compare by content, so keys of the installed tree match new ones.
+     */
+    private static final class SourceKey {
+        private final String source;
+        private final int start;
+        private final int length;
+        private final int hash;
+
+        private SourceKey(String source, int start, int length, int hash) {
+            this.source = source;
+            this.start = start;
+            this.length = length;
+            this.hash = hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof SourceKey other
+                    && hash == other.hash
+                    && length == other.length
+                    && source.regionMatches(start, other.source, other.start, length);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * Polynomial prefix hashes of one source, so the hash of any region costs O(1) instead of a
+     * substring per statement (statements nest, so copying each one is quadratic in depth).
+     */
+    private static final class SourceHashes {
+        private static final long BASE = 1_000_003L;
+        private final String source;
+        private final long[] prefix; // hash of source[0, i)
+        private final long[] powers; // BASE^i
+
+        SourceHashes(String source) {
+            this.source = source;
+            int n = source.length();
+            prefix = new long[n + 1];
+            powers = new long[n + 1];
+            powers[0] = 1;
+            for (int i = 0; i < n; i++) {
+                prefix[i + 1] = prefix[i] * BASE + source.charAt(i);
+                powers[i + 1] = powers[i] * BASE;
+            }
+        }
+
+        SourceKey key(int start, int length) {
+            long h = prefix[start + length] - prefix[start] * powers[length];
+            return new SourceKey(source, start, length, Long.hashCode(h));
         }
     }
 
+    /**
+     * Looks for a block of the installed tree built from exactly the same statement source. Its
+     * whole subtree is matched to the new AST nodes; the rebinding itself waits for commit.
+     */
+    private StatementBlock reuseStatement(Statement astStatement, Map<ASTNode, CodeBlock> nodeToBlockMap) {
+        SourceKey key = sourceOf(astStatement);
+        List<StatementBlock> candidates = base.statements().get(key);
+        int next = reuseCursor.getOrDefault(key, 0);
+        if (candidates == null || next >= candidates.size()) return null;
+
+        StatementBlock candidate = candidates.get(next);
+        List<ASTNode> oldNodes = collectNodes(candidate.getAstNode());
+        List<ASTNode> newNodes = collectNodes(astStatement);
+        if (oldNodes.size() != newNodes.size()) return null;
+        for (int i = 0; i < oldNodes.size(); i++) {
+            if (oldNodes.get(i).getNodeType() != newNodes.get(i).getNodeType()) return null;
+            // A block the edit touched may already have handed its ID to a new block
+            CodeBlock block = base.nodeToBlockMap().get(oldNodes.get(i));
+            if (block != null && identity.isAssigned(block.getId())) return null;
+        }
+
+        reuseCursor.put(key, next + 1);
+        for (int i = 0; i < oldNodes.size(); i++) {
+            ASTNode oldNode = oldNodes.get(i);
+            ASTNode newNode = newNodes.get(i);
+            CodeBlock block = base.nodeToBlockMap().get(oldNode);
+            if (block != null) {
+                identity.claim(block.getId());
+                rebinds.add(new Rebind(block, newNode));
+                nodeToBlockMap.put(newNode, block);
+                reusedBlockCount++;
+            }
+            CodeBlock synthetic = base.syntheticBlocks().get(oldNode);
+            if (synthetic != null) {
+                identity.claim(synthetic.getId());
+                rebinds.add(new Rebind(synthetic, newNode));
+                syntheticBlocks.put(newNode, synthetic);
+            }
+        }
+        return candidate;
+    }
+
+    private static List<ASTNode> collectNodes(ASTNode root) {
+        List<ASTNode> nodes = new ArrayList<>();
+        root.accept(new ASTVisitor(true) {
+            @Override
+            public void preVisit(ASTNode node) {
+                nodes.add(node);
+            }
+        });
+        return nodes;
+    }
+
     public void setMarkNewIdentifiersAsUnedited(boolean mark) {
         this.markNewIdentifiersAsUnedited = mark;
     }
 
+    /** Returns the flag for the refresh being requested and clears it, so it applies to that refresh only. */
+    public boolean takeMarkNewIdentifiersAsUnedited() {
+        boolean mark = markNewIdentifiersAsUnedited;
+        markNewIdentifiersAsUnedited = false;
+        return mark;
+    }
+
+    /** A child of a body in source order; reused blocks still point at their old AST node here. */
+    private record BodyChild(int start, CodeBlock block) {}
+
     private BodyBlock parseBodyBlock(Block astBlock, Map<ASTNode, CodeBlock> nodeToBlockMap, BlockDragAndDropManager manager) {
-        BodyBlock bodyBlock = new BodyBlock(BlockIdPrefix.generate(BlockIdPrefix.BODY, astBlock), astBlock, manager);
+        BodyBlock bodyBlock = new BodyBlock(identity.generate(BlockIdPrefix.BODY, astBlock), astBlock, manager);
         nodeToBlockMap.put(astBlock, bodyBlock);
+        builtBodies.add(bodyBlock);
 
-        List<CodeBlock> allChildren = new ArrayList<>();
+        List<BodyChild> allChildren = new ArrayList<>();
 
         for (Object statementObj : astBlock.statements()) {
             Statement statement = (Statement) statementObj;
-            parseStatement(statement, nodeToBlockMap, manager).ifPresent(allChildren::add);
+            parseBodyStatement(statement, nodeToBlockMap, manager)
+                    .ifPresent(block -> allChildren.add(new BodyChild(statement.getStartPosition(), block)));
         }
 
         int blockStart = astBlock.getStartPosition() + 1;
@@ -82,22 +392,30 @@ public class BlockFactory {
                     }
                 }
                 if (!isInsideChild) {
-                    allChildren.add(parseCommentBlock(comment, nodeToBlockMap));
+                    allChildren.add(new BodyChild(cPos, parseCommentBlock(comment, nodeToBlockMap)));
                 }
             }
         }
 
-        allChildren.sort(Comparator.comparingInt(b -> b.getAstNode().getStartPosition()));
+        allChildren.sort(Comparator.comparingInt(BodyChild::start));
 
-        for (CodeBlock cb : allChildren) {
-            if (cb instanceof StatementBlock) {
-                bodyBlock.addStatement((StatementBlock) cb);
+        for (BodyChild child : allChildren) {
+            if (child.block() instanceof StatementBlock) {
+                bodyBlock.appendStatement((StatementBlock) child.block());
             }
         }
 
         return bodyBlock;
     }
 
+    private Optional<StatementBlock> parseBodyStatement(Statement astStatement, Map<ASTNode, CodeBlock> nodeToBlockMap, BlockDragAndDropManager manager) {
+        StatementBlock reused = reuseStatement(astStatement, nodeToBlockMap);
+        if (reused != null) {
+            return Optional.of(reused);
+        }
+        return parseStatement(astStatement, nodeToBlockMap, manager);
+    }
+
     private Optional<StatementBlock> parseStatement(Statement astStatement, Map<ASTNode, CodeBlock> nodeToBlockMap, BlockDragAndDropManager manager) {
         if (astStatement instanceof Block) {
             return Optional.of(parseBodyBlock((Block) astStatement, nodeToBlockMap, manager));
@@ -178,7 +496,7 @@ public class BlockFactory {
     }
 
     private WaitBlock parseWaitStatement(TryStatement astNode, Map<ASTNode, CodeBlock> nodeToBlockMap) {
-        WaitBlock waitBlock = new WaitBlock(BlockIdPrefix.generate(BlockIdPrefix.WAIT, astNode), astNode);
+        WaitBlock waitBlock = new WaitBlock(identity.generate(BlockIdPrefix.WAIT, astNode), astNode);
         nodeToBlockMap.put(astNode, waitBlock);
         Statement innerStmt = (Statement) astNode.getBody().statements().getFirst();
         ExpressionStatement exprStmt = (ExpressionStatement) innerStmt;
@@ -191,13 +509,13 @@ public class BlockFactory {
     }
 
     private ReturnBlock parseReturnStatement(ReturnStatement astNode, Map<ASTNode, CodeBlock> nodeToBlockMap) {
-        ReturnBlock returnBlock = new ReturnBlock(BlockIdPrefix.generate(BlockIdPrefix.RETURN, astNode), astNode);
+        ReturnBlock returnBlock = new ReturnBlock(identity.generate(BlockIdPrefix.RETURN, astNode), astNode);
         nodeToBlockMap.put(astNode, returnBlock);
         return returnBlock;
     }
 
     private DoWhileBlock parseDoWhileStatement(DoStatement astNode, Map<ASTNode, CodeBlock> nodeToBlockMap, BlockDragAndDropManager manager) {
-        DoWhileBlock doWhileBlock = new DoWhileBlock(BlockIdPrefix.generate(BlockIdPrefix.DO_WHILE, astNode), astNode, manager);
+        DoWhileBlock doWhileBlock = new DoWhileBlock(identity.generate(BlockIdPrefix.DO_WHILE, astNode), astNode, manager);
         nodeToBlockMap.put(astNode, doWhileBlock);
         if (astNode.getBody() instanceof Block) {
             doWhileBlock.setBody(parseBodyBlock((Block) astNode.getBody(), nodeToBlockMap, manager));
@@ -209,7 +527,7 @@ public class BlockFactory {
     }
 
     private SwitchBlock parseSwitchStatement(SwitchStatement astNode, Map<ASTNode, CodeBlock> nodeToBlockMap, BlockDragAndDropManager manager) {
-        SwitchBlock switchBlock = new SwitchBlock(BlockIdPrefix.generate(BlockIdPrefix.SWITCH, astNode), astNode, manager);
+        SwitchBlock switchBlock = new SwitchBlock(identity.generate(BlockIdPrefix.SWITCH, astNode), astNode, manager);
         nodeToBlockMap.put(astNode, switchBlock);
         if (astNode.getExpression() != null) {
             parseExpression(astNode.getExpression(), nodeToBlockMap).ifPresent(switchBlock::setExpression);
@@ -221,7 +539,7 @@ public class BlockFactory {
         for (Statement stmt : statements) {
             if (stmt instanceof SwitchCase) {
                 SwitchCase switchCase = (SwitchCase) stmt;
-                String caseId = BlockIdPrefix.generate(BlockIdPrefix.SWITCH + "_case_", switchCase);
+                String caseId = identity.generate(BlockIdPrefix.SWITCH + "_case_", switchCase);
                 currentCase = new SwitchBlock.SwitchCaseBlock(caseId, switchCase, manager);
                 nodeToBlockMap.put(switchCase, currentCase);
                 if (!switchCase.isDefault() && !switchCase.expressions().isEmpty()) {
@@ -229,20 +547,34 @@ public class BlockFactory {
                     parseExpression(caseExpr, nodeToBlockMap).ifPresent(currentCase::setCaseExpression);
                 }
                 currentCaseBody = new BodyBlock(
-                        BlockIdPrefix.generate(BlockIdPrefix.BODY, switchCase),
+                        identity.generate(BlockIdPrefix.BODY, switchCase),
                         ast.getAST().newBlock(),
                         manager
                 );
+                builtBodies.add(currentCaseBody);
                 currentCase.setBody(currentCaseBody);
                 switchBlock.addCase(currentCase);
             } else if (currentCaseBody != null) {
-                parseStatement(stmt, nodeToBlockMap, manager).ifPresent(currentCaseBody::addStatement);
+                parseBodyStatement(stmt, nodeToBlockMap, manager).ifPresent(currentCaseBody::appendStatement);
             }
         }
         return switchBlock;
     }
 
     private CommentBlock parseCommentBlock(Comment astNode, Map<ASTNode, CodeBlock> nodeToBlockMap) {
+        SourceKey key = sourceOf(astNode);
+        List<CommentBlock> candidates = base.comments().get(key);
+        int next = reuseCursor.getOrDefault(key, 0);
+        if (candidates != null && next < candidates.size() && !identity.isAssigned(candidates.get(next).getId())) {
+            CommentBlock reused = candidates.get(next);
+            reuseCursor.put(key, next + 1);
+            identity.claim(reused.getId());
+            rebinds.add(new Rebind(reused, astNode));
+            nodeToBlockMap.put(astNode, reused);
+            reusedBlockCount++;
+            return reused;
+        }
+
         String text = "Comment";
         if (currentSourceCode != null) {
             try {
@@ -259,7 +591,7 @@ public class BlockFactory {
             } catch (Exception ignored) {}
         }
         CommentBlock commentBlock = new CommentBlock(
-                BlockIdPrefix.generate(BlockIdPrefix.COMMENT, astNode),
+                identity.generate(BlockIdPrefix.COMMENT, astNode),
                 astNode,
                 text
         );
@@ -268,7 +600,7 @@ public class BlockFactory {
     }
 
     private VariableDeclarationBlock parseVariableDeclaration(VariableDeclarationStatement astNode, Map<ASTNode, CodeBlock> nodeToBlockMap) {
-        VariableDeclarationBlock varBlock = new VariableDeclarationBlock(BlockIdPrefix.generate(BlockIdPrefix.VARIABLE, astNode), astNode);
+        VariableDeclarationBlock varBlock = new VariableDeclarationBlock(identity.generate(BlockIdPrefix.VARIABLE, astNode), astNode);
         nodeToBlockMap.put(astNode, varBlock);
         VariableDeclarationFragment fragment = (VariableDeclarationFragment) astNode.fragments().getFirst();
         if (fragment.getInitializer() != null) {
@@ -278,7 +610,7 @@ public class BlockFactory {
     }
 
     private IfBlock parseIfStatement(IfStatement astNode, Map<ASTNode, CodeBlock> nodeToBlockMap, BlockDragAndDropManager manager) {
-        IfBlock ifBlock = new IfBlock(BlockIdPrefix.generate(BlockIdPrefix.IF, astNode), astNode);
+        IfBlock ifBlock = new IfBlock(identity.generate(BlockIdPrefix.IF, astNode), astNode);
         nodeToBlockMap.put(astNode, ifBlock);
         parseExpression(astNode.getExpression(), nodeToBlockMap).ifPresent(ifBlock::setCondition);
         if (astNode.getThenStatement() instanceof Block) {
@@ -292,11 +624,12 @@ public class BlockFactory {
     }
 
     private PrintBlock parsePrintStatement(ExpressionStatement astNode, Map<ASTNode, CodeBlock> nodeToBlockMap) {
-        PrintBlock printBlock = new PrintBlock(BlockIdPrefix.generate(BlockIdPrefix.PRINT, astNode), astNode);
+        PrintBlock printBlock = new PrintBlock(identity.generate(BlockIdPrefix.PRINT, astNode), astNode);
         nodeToBlockMap.put(astNode, printBlock);
         MethodInvocation methodInvocation = (MethodInvocation) astNode.getExpression();
         if (methodInvocation.arguments().isEmpty()) {
-            LiteralBlock<String> block = new LiteralBlock<>(BlockIdPrefix.generate(BlockIdPrefix.SYNTHETIC_STRING, astNode), methodInvocation, "");
+            LiteralBlock<String> block = new LiteralBlock<>(identity.generate(BlockIdPrefix.SYNTHETIC_STRING, astNode), methodInvocation, "");
+            syntheticBlocks.put(methodInvocation, block);
             printBlock.addArgument(block);
         } else {
             for (Object arg : methodInvocation.arguments()) {
@@ -325,7 +658,7 @@ public class BlockFactory {
     }
 
     private WhileBlock parseWhileStatement(WhileStatement astNode, Map<ASTNode, CodeBlock> nodeToBlockMap, BlockDragAndDropManager manager) {
-        WhileBlock whileBlock = new WhileBlock(BlockIdPrefix.generate(BlockIdPrefix.WHILE, astNode), astNode, manager);
+        WhileBlock whileBlock = new WhileBlock(identity.generate(BlockIdPrefix.WHILE, astNode), astNode, manager);
         nodeToBlockMap.put(astNode, whileBlock);
         parseExpression(astNode.getExpression(), nodeToBlockMap).ifPresent(whileBlock::setCondition);
         if (astNode.getBody() instanceof Block) {
@@ -335,7 +668,7 @@ public class BlockFactory {
     }
 
     private ForBlock parseForStatement(EnhancedForStatement astNode, Map<ASTNode, CodeBlock> nodeToBlockMap, BlockDragAndDropManager manager) {
-        ForBlock forBlock = new ForBlock(BlockIdPrefix.generate(BlockIdPrefix.FOR, astNode), astNode, manager);
+        ForBlock forBlock = new ForBlock(identity.generate(BlockIdPrefix.FOR, astNode), astNode, manager);
         nodeToBlockMap.put(astNode, forBlock);
         SingleVariableDeclaration param = astNode.getParameter();
         if (param != null) {
@@ -351,19 +684,19 @@ public class BlockFactory {
     }
 
     private BreakBlock parseBreakStatement(BreakStatement astNode, Map<ASTNode, CodeBlock> nodeToBlockMap) {
-        BreakBlock breakBlock = new BreakBlock(BlockIdPrefix.generate(BlockIdPrefix.BREAK, astNode), astNode);
+        BreakBlock breakBlock = new BreakBlock(identity.generate(BlockIdPrefix.BREAK, astNode), astNode);
         nodeToBlockMap.put(astNode, breakBlock);
         return breakBlock;
     }
 
     private ContinueBlock parseContinueStatement(ContinueStatement astNode, Map<ASTNode, CodeBlock> nodeToBlockMap) {
-        ContinueBlock continueBlock = new ContinueBlock(BlockIdPrefix.generate(BlockIdPrefix.CONTINUE, astNode), astNode);
+        ContinueBlock continueBlock = new ContinueBlock(identity.generate(BlockIdPrefix.CONTINUE, astNode), astNode);
         nodeToBlockMap.put(astNode, continueBlock);
         return continueBlock;
     }
 
     private AssignmentBlock parseAssignmentStatement(ExpressionStatement astNode, Map<ASTNode, CodeBlock> nodeToBlockMap) {
-        AssignmentBlock assignBlock = new AssignmentBlock(BlockIdPrefix.generate(BlockIdPrefix.ASSIGNMENT, astNode), astNode);
+        AssignmentBlock assignBlock = new AssignmentBlock(identity.generate(BlockIdPrefix.ASSIGNMENT, astNode), astNode);
         nodeToBlockMap.put(astNode, assignBlock);
         Assignment assignment = (Assignment) astNode.getExpression();
         parseExpression(assignment.getLeftHandSide(), nodeToBlockMap).ifPresent(assignBlock::setLeftHandSide);
@@ -376,7 +709,7 @@ public class BlockFactory {
         MethodInvocation mi = (MethodInvocation) fragment.getInitializer();
         String inputType = mi.getName().getIdentifier();
         ReadInputBlock readBlock = new ReadInputBlock(
-                BlockIdPrefix.generate(BlockIdPrefix.READ_INPUT, astNode), astNode, inputType
+                identity.generate(BlockIdPrefix.READ_INPUT, astNode), astNode, inputType
         );
         nodeToBlockMap.put(astNode, readBlock);
         parseExpression(fragment.getName(), nodeToBlockMap).ifPresent(readBlock::setVariableName);
@@ -384,7 +717,7 @@ public class BlockFactory {
     }
 
     private BinaryExpressionBlock parseBinaryExpression(InfixExpression astNode, Map<ASTNode, CodeBlock> nodeToBlockMap) {
-        BinaryExpressionBlock binaryBlock = new BinaryExpressionBlock(BlockIdPrefix.generate(BlockIdPrefix.BINARY, astNode), astNode);
+        BinaryExpressionBlock binaryBlock = new BinaryExpressionBlock(identity.generate(BlockIdPrefix.BINARY, astNode), astNode);
         nodeToBlockMap.put(astNode, binaryBlock);
         parseExpression(astNode.getLeftOperand(), nodeToBlockMap).ifPresent(binaryBlock::setLeftOperand);
         parseExpression(astNode.getRightOperand(), nodeToBlockMap).ifPresent(binaryBlock::setRightOperand);
@@ -394,7 +727,7 @@ public class BlockFactory {
     private Optional<ExpressionBlock> parseExpression(Expression astExpression, Map<ASTNode, CodeBlock> nodeToBlockMap) {
         if (astExpression instanceof StringLiteral) {
             StringLiteral literalNode = (StringLiteral) astExpression;
-            LiteralBlock<String> block = new LiteralBlock<>(BlockIdPrefix.generate(BlockIdPrefix.STRING, literalNode), literalNode, literalNode.getLiteralValue());
+            LiteralBlock<String> block = new LiteralBlock<>(identity.generate(BlockIdPrefix.STRING, literalNode), literalNode, literalNode.getLiteralValue());
             nodeToBlockMap.put(astExpression, block);
             return Optional.of(block);
         }
@@ -404,11 +737,11 @@ public class BlockFactory {
             String token = literalNode.getToken();
             ExpressionBlock block;
             if (token.toLowerCase().endsWith("f")) {
-                block = new LiteralBlock<>(BlockIdPrefix.generate(BlockIdPrefix.NUMBER_FLOAT, literalNode), literalNode, Float.parseFloat(token));
+                block = new LiteralBlock<>(identity.generate(BlockIdPrefix.NUMBER_FLOAT, literalNode), literalNode, Float.parseFloat(token));
             } else if (token.contains(".") || token.toLowerCase().endsWith("d")) {
-                block = new LiteralBlock<>(BlockIdPrefix.generate(BlockIdPrefix.NUMBER_DOUBLE, literalNode), literalNode, Double.parseDouble(token));
+                block = new LiteralBlock<>(identity.generate(BlockIdPrefix.NUMBER_DOUBLE, literalNode), literalNode, Double.parseDouble(token));
             } else {
-                block = new LiteralBlock<>(BlockIdPrefix.generate(BlockIdPrefix.NUMBER_INT, literalNode), literalNode, Integer.parseInt(token));
+                block = new LiteralBlock<>(identity.generate(BlockIdPrefix.NUMBER_INT, literalNode), literalNode, Integer.parseInt(token));
             }
             nodeToBlockMap.put(astExpression, block);
             return Optional.of(block);
@@ -417,14 +750,14 @@ public class BlockFactory {
         // UPDATED: Use BooleanLiteralBlock for true/false instead of LiteralBlock
         if (astExpression instanceof BooleanLiteral) {
             BooleanLiteral literalNode = (BooleanLiteral) astExpression;
-            BooleanLiteralBlock block = new BooleanLiteralBlock(BlockIdPrefix.generate(BlockIdPrefix.BOOLEAN, literalNode), literalNode);
+            BooleanLiteralBlock block = new BooleanLiteralBlock(identity.generate(BlockIdPrefix.BOOLEAN, literalNode), literalNode);
             nodeToBlockMap.put(astExpression, block);
             return Optional.of(block);
         }
 
         if (astExpression instanceof ArrayInitializer) {
             ArrayInitializer arrayInit = (ArrayInitializer) astExpression;
-            ListBlock listBlock = new ListBlock(BlockIdPrefix.generate(BlockIdPrefix.LIST, arrayInit), arrayInit);
+            ListBlock listBlock = new ListBlock(identity.generate(BlockIdPrefix.LIST, arrayInit), arrayInit);
             nodeToBlockMap.put(astExpression, listBlock);
             for (Object expr : arrayInit.expressions()) {
                 parseExpression((Expression) expr, nodeToBlockMap).ifPresent(listBlock::addElement);
@@ -438,9 +771,9 @@ public class BlockFactory {
             }
             SimpleName simpleName = (SimpleName) astExpression;
             IdentifierBlock block = new IdentifierBlock(
-                    BlockIdPrefix.generate(BlockIdPrefix.IDENTIFIER, astExpression),
+                    identity.generate(BlockIdPrefix.IDENTIFIER, astExpression),
                     simpleName,
-                    markNewIdentifiersAsUnedited
+                    markNewIdentifiers
             );
             nodeToBlockMap.put(astExpression, block);
             return Optional.of(block);
@@ -469,8 +802,9 @@ public class BlockFactory {
         }
     }
 
+    /** CompilationUnit of the installed tree. */
     public CompilationUnit getCompilationUnit() {
-        return ast;
+        return committed.ast();
     }
 
     private static class MainMethodVisitor extends ASTVisitor {
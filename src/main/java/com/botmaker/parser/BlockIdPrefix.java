@@ -1,7 +1,8 @@
 package com.botmaker.util;
 
 /**
- * Constants for block ID prefixes
+ * Constants for block ID prefixes.
+ * IDs themselves are assigned by BlockIdentity so they stay stable across reparses.
  */
 public class BlockIdPrefix {
     public static final String MAIN = "main_";
@@ -33,11 +34,4 @@ public class BlockIdPrefix {
     public static final String LIST = "list_";
 
     private BlockIdPrefix() {} // Prevent instantiation
-
-    /**
-     * Generate ID with prefix and hash
-     */
-    public static String generate(String prefix, Object node) {
-        return prefix + node.hashCode();
-    }
 }
\ No newline at end of file
@@ -0,0 +1,161 @@
+package com.botmaker.parser;
+
+import com.botmaker.core.CodeBlock;
+import com.botmaker.state.TextDelta;
+import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jdt.core.dom.MethodDeclaration;
+import org.eclipse.jdt.core.dom.StructuralPropertyDescriptor;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Assigns block IDs that survive reparses, so breakpoints and anything else keyed by block ID
+ * follow a block through edits.
+ *
+ * Unchanged statements keep their blocks (and IDs) through reconciliation. A block the edit
+ * touched inherits the ID of the previous block of the same kind whose start offset, remapped
+ * through the edit, is where the new block starts. Anything else gets an ID from its structural
+ * path in the method (e.g. {@code if_/statements3/thenStatement}), made unique if needed.
+ *
+ * The anchors of the installed tree are passed to {@link #begin} and the ones for the new tree
+ * are returned by {@link #end}, so a conversion that is never installed leaves nothing behind.
+ */
+class BlockIdentity {
+
+    record Anchor(String prefix, int start, int end) {}
+
+    private Map<String, Anchor> anchors = Map.of();             // id -> range in the previous source
+    private Map<String, Anchor> nextAnchors = new HashMap<>();
+    private Map<String, String> anchoredIds = new HashMap<>();  // prefix@newStart -> id of a touched block
+    private Set<String> assigned = new HashSet<>();
+    // Paths of the nodes visited by this conversion, and each sibling list's node -> index
+    private Map<ASTNode, String> paths = new IdentityHashMap<>();
+    private Map<List<?>, Map<Object, Integer>> siblingIndexes = new IdentityHashMap<>();
+
+    /**
+     * Starts a conversion of {@code source}. Blocks of the previous conversion that the edit
+     * touched become candidates for anchoring, except those expected to be reused.
+     * @param previousAnchors Anchors returned by {@link #end} for the installed tree
+     */
+    void begin(String previousSource, String source, Set<String> reusedIds, Map<String, Anchor> previousAnchors) {
+        anchors = previousAnchors;
+        nextAnchors = new HashMap<>();
+        anchoredIds = new HashMap<>();
+        assigned = new HashSet<>();
+        paths = new IdentityHashMap<>();
+        siblingIndexes = new IdentityHashMap<>();
+        if (previousSource == null || anchors.isEmpty()) return;
+
+        TextDelta change = TextDelta.between(previousSource, source);
+        int changeStart = change.offset();
+        int changeEnd = changeStart + change.length();
+
+        for (Map.Entry<String, Anchor> entry : anchors.entrySet()) {
+            Anchor anchor = entry.getValue();
+            boolean touched = change.length() > 0
+                    ? anchor.start < changeEnd && anchor.end > changeStart
+                    : anchor.start < changeStart && anchor.end > changeStart;
+            // Untouched blocks are reused as-is; a start inside the changed text cannot be remapped
+            if (!touched || anchor.start > changeStart || reusedIds.contains(entry.getKey())) continue;
+            anchoredIds.putIfAbsent(key(anchor.prefix, anchor.start), entry.getKey());
+        }
+    }
+
+    String generate(String prefix, ASTNode node) {
+        String id = anchoredIds.remove(key(prefix, node.getStartPosition()));
+        if (id == null || assigned.contains(id)) {
+            id = uniqueId(prefix + path(node));
+        }
+        assigned.add(id);
+        nextAnchors.put(id, new Anchor(prefix, node.getStartPosition(), node.getStartPosition() + node.getLength()));
+        return id;
+    }
+
+    /** True if a block with this ID was already created by the running conversion. */
+    boolean isAssigned(String id) {
+        return assigned.contains(id);
+    }
+
+    /** Marks the ID of a reused block as taken. */
+    void claim(String id) {
+        assigned.add(id);
+    }
+
+    /**
+     * Ends the conversion and returns where every block of the new tree sits, including reused
+     * blocks, which are passed with the new node they will be rebound to.
+     */
+    Map<String, Anchor> end(Map<ASTNode, CodeBlock> blocks) {
+        Map<String, Anchor> result = nextAnchors;
+        for (Map.Entry<ASTNode, CodeBlock> entry : blocks.entrySet()) {
+            String id = entry.getValue().getId();
+            if (result.containsKey(id)) continue;
+            Anchor previous = anchors.get(id);
+            ASTNode node = entry.getKey();
+            if (previous != null) {
+                result.put(id, new Anchor(previous.prefix, node.getStartPosition(),
+                        node.getStartPosition() + node.getLength()));
+            }
+        }
+        anchors = Map.of();
+        nextAnchors = new HashMap<>();
+        anchoredIds = new HashMap<>();
+        paths = new IdentityHashMap<>();
+        siblingIndexes = new IdentityHashMap<>();
+        return result;
+    }
+
+    /** Previous IDs stay reserved for the blocks that may still be reused or anchored. */
+    private String uniqueId(String base) {
+        String id = base;
+        for (int n = 1; assigned.contains(id) || anchors.containsKey(id); n++) {
+            id = base + "~" + n;
+        }
+        return id;
+    }
+
+    private static String key(String prefix, int start) {
+        return prefix + "@" + start;
+    }
+
+    /** Property path from the enclosing method, or the offset for nodes outside the tree (comments). */
+    private String path(ASTNode node) {
+        if (node.getParent() == null && !(node instanceof MethodDeclaration)) {
+            return "@" + node.getStartPosition();
+        }
+        return pathFromMethod(node);
+    }
+
+    /** Built on the parent's (memoized) path, so each node adds one step instead of walking to the method. */
+    private String pathFromMethod(ASTNode node) {
+        if (node.getParent() == null || node instanceof MethodDeclaration) return "";
+        String path = paths.get(node);
+        if (path != null) return path;
+
+        StructuralPropertyDescriptor location = node.getLocationInParent();
+        String step = location.getId();
+        if (location.isChildListProperty()) {
+            step += indexInParent(node, (List<?>) node.getParent().getStructuralProperty(location));
+        }
+        path = pathFromMethod(node.getParent()) + "/" + step;
+        paths.put(node, path);
+        return path;
+    }
+
+    /** Index of {@code node} among its siblings; each list is indexed once, not searched per node. */
+    private int indexInParent(ASTNode node, List<?> siblings) {
+        Map<Object, Integer> index = siblingIndexes.computeIfAbsent(siblings, list -> {
+            Map<Object, Integer> positions = new IdentityHashMap<>(list.size() * 2);
+            for (int i = 0; i < list.size(); i++) {
+                positions.put(list.get(i), i);
+            }
+            return positions;
+        });
+        return index.get(node);
+    }
+}
@@ -8,6 +8,11 @@ import com.botmaker.events.EventBus;
 import com.botmaker.ui.AddableBlock;
 import org.eclipse.jdt.core.dom.*;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
 public class CodeEditor {
 
     private final ApplicationState state;
@@ -15,6 +20,11 @@ public class CodeEditor {
     private final AstRewriter astRewriter;
     private final BlockFactory blockFactory;
 
+    // Edits made while the blocks still showed an older tree; replayed once the current one is installed
+    private record PendingEdit(Consumer<EditTransaction> edits, boolean markNewIdentifiers) {}
+    private final List<PendingEdit> pendingEdits = new ArrayList<>();
+    private String pendingBaseSource; // source of the tree the pending edits were made on
+
     public CodeEditor(ApplicationState state, EventBus eventBus,
                       AstRewriter astRewriter, BlockFactory blockFactory) {
         this.state = state;
@@ -23,6 +33,11 @@ public class CodeEditor {
         this.blockFactory = blockFactory;
     }
 
+    /** Runs an edit whose new identifiers start out unedited. */
+    private void editMarkingNewIdentifiers(Consumer<EditTransaction> edits) {
+        edit(edits, true);
+    }
+
     private String getCurrentCode() {
         return state.getCurrentCode();
     }
@@ -31,49 +46,80 @@ public class CodeEditor {
         return state.getCompilationUnit().orElse(null);
     }
 
-    private void triggerUpdate(String newCode) {
+    private void triggerUpdate(String newCode, List<TextDelta> deltas) {
         String previousCode = getCurrentCode();
-        eventBus.publish(new CoreApplicationEvents.CodeUpdatedEvent(newCode, previousCode));
+        if (deltas.isEmpty() || newCode.equals(previousCode)) return;
+        eventBus.publish(new CoreApplicationEvents.CodeUpdatedEvent(newCode, previousCode, deltas, state.getDocVersion()));
+    }
+
+    /**
+     * Runs any number of edits as one transaction: a single rewrite pass, a single
+     * CodeUpdatedEvent and therefore a single history entry.
+     *
+     * While the blocks still show an older version of the code, their tree doesn't match the text,
+     * so the edits are queued and replayed against the current tree by {@link #replayPendingEdits}.
+     */
+    public void edit(Consumer<EditTransaction> edits) {
+        edit(edits, false);
+    }
+
+    private void edit(Consumer<EditTransaction> edits, boolean markNewIdentifiers) {
+        CompilationUnit cu = getCompilationUnit();
+        if (cu == null) return;
+        if (!state.isCompilationUnitCurrent()) {
+            if (pendingEdits.isEmpty()) pendingBaseSource = state.getCompilationUnitSource();
+            pendingEdits.add(new PendingEdit(edits, markNewIdentifiers));
+            return;
+        }
+        run(cu, edits, null, markNewIdentifiers);
+    }
+
+    /**
+     * Applies the edits queued while the blocks were updating, as one transaction on the tree that
+     * is now installed. Their nodes are carried over by offset; edits whose node was changed in the
+     * meantime are skipped and reported.
+     */
+    public void replayPendingEdits() {
+        if (pendingEdits.isEmpty() || !state.isCompilationUnitCurrent()) return;
+        CompilationUnit cu = getCompilationUnit();
+        List<PendingEdit> replayed = new ArrayList<>(pendingEdits);
+        pendingEdits.clear();
+
+        NodeRebaser rebaser = new NodeRebaser(pendingBaseSource, getCurrentCode(), cu);
+        boolean markNewIdentifiers = replayed.stream().anyMatch(PendingEdit::markNewIdentifiers);
+        run(cu, tx -> replayed.forEach(pending -> pending.edits().accept(tx)), rebaser, markNewIdentifiers);
+    }
+
+    private void run(CompilationUnit cu, Consumer<EditTransaction> edits, NodeRebaser rebaser, boolean markNewIdentifiers) {
+        EditTransaction transaction = new EditTransaction(cu, getCurrentCode(), astRewriter, rebaser);
+        edits.accept(transaction);
+        if (transaction.getUnresolvedCount() > 0) {
+            eventBus.publish(new CoreApplicationEvents.StatusMessageEvent(
+                    transaction.getUnresolvedCount() + " edit(s) not applied: their blocks changed while updating."));
+        }
+        if (!transaction.hasChanges()) return;
+
+        String newCode = transaction.apply();
+        // The flag is taken by the refresh the update requests; cleared afterwards in case nothing changed
+        blockFactory.setMarkNewIdentifiersAsUnedited(markNewIdentifiers);
+        try {
+            triggerUpdate(newCode, transaction.getAppliedDeltas());
+        } finally {
+            blockFactory.setMarkNewIdentifiersAsUnedited(false);
+        }
     }
 
     public void moveStatement(StatementBlock blockToMove, BodyBlock sourceBody,
                               BodyBlock targetBody, int targetIndex) {
-        String newCode = astRewriter.moveStatement(
-                getCompilationUnit(),
-                getCurrentCode(),
-                blockToMove,
-                sourceBody,
-                targetBody,
-                targetIndex
-        );
-        triggerUpdate(newCode);
+        edit(tx -> tx.moveStatement(blockToMove, sourceBody, targetBody, targetIndex));
     }
 
     public void replaceLiteralValue(Expression toReplace, String newLiteralValue) {
-        String newCode = astRewriter.replaceLiteral(
-                getCompilationUnit(),
-                getCurrentCode(),
-                toReplace,
-                newLiteralValue
-        );
-        triggerUpdate(newCode);
+        edit(tx -> tx.replaceLiteral(toReplace, newLiteralValue));
     }
 
     public void addStringArgumentToMethodInvocation(MethodInvocation mi, String text) {
-        CompilationUnit cu = getCompilationUnit();
-        if (cu == null) return;
-
-        AST ast = cu.getAST();
-        StringLiteral newArg = ast.newStringLiteral();
-        newArg.setLiteralValue(text);
-
-        String newCode = astRewriter.addArgumentToMethodInvocation(
-                cu,
-                getCurrentCode(),
-                mi,
-                newArg
-        );
-        triggerUpdate(newCode);
+        edit(tx -> tx.addStringArgumentToMethodInvocation(mi, text));
     }
 
     public void addElementToArrayInitializer(
@@ -81,151 +127,80 @@ public class CodeEditor {
             com.botmaker.ui.AddableExpression type,
             int insertIndex) {
 
-        blockFactory.setMarkNewIdentifiersAsUnedited(true);
-        String newCode = astRewriter.addElementToArrayInitializer(
-                getCompilationUnit(),
-                getCurrentCode(),
-                arrayInit,
-                type,
-                insertIndex
-        );
-        triggerUpdate(newCode);
+        editMarkingNewIdentifiers(tx -> tx.addElementToArrayInitializer(arrayInit, type, insertIndex));
     }
 
     public void deleteElementFromArrayInitializer(
             org.eclipse.jdt.core.dom.ArrayInitializer arrayInit,
             int elementIndex) {
 
-        String newCode = astRewriter.deleteElementFromArrayInitializer(
-                getCompilationUnit(),
-                getCurrentCode(),
-                arrayInit,
-                elementIndex
-        );
-        triggerUpdate(newCode);
+        edit(tx -> tx.deleteElementFromArrayInitializer(arrayInit, elementIndex));
     }
 
     public void updateComment(Comment commentNode, String newText) {
-        String newCode = astRewriter.updateComment(
-                getCurrentCode(),
-                commentNode,
-                newText
-        );
-        triggerUpdate(newCode);
+        edit(tx -> tx.updateComment(commentNode, newText));
     }
 
     public void deleteComment(Comment commentNode) {
-        String newCode = astRewriter.deleteComment(
-                getCurrentCode(),
-                commentNode
-        );
-        triggerUpdate(newCode);
+        edit(tx -> tx.deleteComment(commentNode));
     }
 
     public void replaceExpression(Expression toReplace, com.botmaker.ui.AddableExpression type) {
-        blockFactory.setMarkNewIdentifiersAsUnedited(true);
-        String newCode = astRewriter.replaceExpression(
-                getCompilationUnit(),
-                getCurrentCode(),
-                toReplace,
-                type
-        );
-        triggerUpdate(newCode);
+        editMarkingNewIdentifiers(tx -> tx.replaceExpression(toReplace, type));
     }
 
     public void addStatement(BodyBlock targetBody, AddableBlock type, int index) {
-        blockFactory.setMarkNewIdentifiersAsUnedited(true);
-        String newCode = astRewriter.addStatement(
-                getCompilationUnit(),
-                getCurrentCode(),
-                targetBody,
-                type,
-                index
-        );
-        triggerUpdate(newCode);
+        editMarkingNewIdentifiers(tx -> tx.addStatement(targetBody, type, index));
     }
 
     public void deleteElseFromIfStatement(IfStatement ifStmt) {
-        String newCode = astRewriter.deleteElseFromIfStatement(
-                getCompilationUnit(),
-                getCurrentCode(),
-                ifStmt
-        );
-        triggerUpdate(newCode);
+        edit(tx -> tx.deleteElseFromIfStatement(ifStmt));
     }
 
     public void convertElseToElseIf(IfStatement ifStmt) {
-        String newCode = astRewriter.convertElseToElseIf(
-                getCompilationUnit(),
-                getCurrentCode(),
-                ifStmt
-        );
-        triggerUpdate(newCode);
+        edit(tx -> tx.convertElseToElseIf(ifStmt));
     }
 
     public void addElseToIfStatement(IfStatement ifStmt) {
-        String newCode = astRewriter.addElseToIfStatement(
-                getCompilationUnit(),
-                getCurrentCode(),
-                ifStmt
-        );
-        triggerUpdate(newCode);
+        edit(tx -> tx.addElseToIfStatement(ifStmt));
     }
 
     public void replaceSimpleName(SimpleName toReplace, String newName) {
-        String newCode = astRewriter.replaceSimpleName(
-                getCompilationUnit(),
-                getCurrentCode(),
-                toReplace,
-                newName
-        );
-        triggerUpdate(newCode);
+        edit(tx -> tx.replaceSimpleName(toReplace, newName));
     }
 
     public void deleteStatement(Statement toDelete) {
-        String newCode = astRewriter.deleteNode(
-                getCompilationUnit(),
-                getCurrentCode(),
-                toDelete
-        );
-        triggerUpdate(newCode);
+        edit(tx -> tx.deleteNode(toDelete));
+    }
+
+    /** Deletes several statements at once (e.g. a multi-block selection) as one edit. */
+    public void deleteStatements(Collection<? extends Statement> toDelete) {
+        edit(tx -> toDelete.forEach(tx::deleteNode));
     }
 
     public void replaceVariableType(VariableDeclarationStatement toReplace, String newTypeName) {
-        String newCode = astRewriter.replaceVariableType(
-                getCompilationUnit(),
-                getCurrentCode(),
-                toReplace,
-                newTypeName
-        );
-        triggerUpdate(newCode);
+        edit(tx -> tx.replaceVariableType(toReplace, newTypeName));
     }
 
     // --- FIX START: Manual Mapping instead of .values() ---
 
     public void updateAssignmentOperator(org.eclipse.jdt.core.dom.ASTNode node, String newOperatorSymbol) {
-        String newCode = null;
-
         if (node instanceof Assignment) {
             Assignment.Operator op = getAssignmentOperator(newOperatorSymbol);
             if (op != null) {
-                newCode = astRewriter.replaceAssignmentOperator(getCompilationUnit(), getCurrentCode(), (Assignment) node, op);
+                edit(tx -> tx.replaceAssignmentOperator((Assignment) node, op));
             }
         } else if (node instanceof org.eclipse.jdt.core.dom.PrefixExpression) {
             org.eclipse.jdt.core.dom.PrefixExpression.Operator op = getPrefixOperator(newOperatorSymbol);
             if (op != null) {
-                newCode = astRewriter.replacePrefixOperator(getCompilationUnit(), getCurrentCode(), (org.eclipse.jdt.core.dom.PrefixExpression) node, op);
+                edit(tx -> tx.replacePrefixOperator((org.eclipse.jdt.core.dom.PrefixExpression) node, op));
             }
         } else if (node instanceof org.eclipse.jdt.core.dom.PostfixExpression) {
             org.eclipse.jdt.core.dom.PostfixExpression.Operator op = getPostfixOperator(newOperatorSymbol);
             if (op != null) {
-                newCode = astRewriter.replacePostfixOperator(getCompilationUnit(), getCurrentCode(), (org.eclipse.jdt.core.dom.PostfixExpression) node, op);
+                edit(tx -> tx.replacePostfixOperator((org.eclipse.jdt.core.dom.PostfixExpression) node, op));
             }
         }
-
-        if (newCode != null) {
-            triggerUpdate(newCode);
-        }
     }
 
     private Assignment.Operator getAssignmentOperator(String symbol) {
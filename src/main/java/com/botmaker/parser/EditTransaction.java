@@ -0,0 +1,246 @@
+package com.botmaker.parser;
+
+import com.botmaker.core.BodyBlock;
+import com.botmaker.core.StatementBlock;
+import com.botmaker.state.TextDelta;
+import com.botmaker.ui.AddableBlock;
+import com.botmaker.ui.AddableExpression;
+import org.eclipse.jdt.core.dom.*;
+import org.eclipse.jdt.core.dom.rewrite.ASTRewrite;
+import org.eclipse.jface.text.Document;
+import org.eclipse.jface.text.DocumentEvent;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentListener;
+import org.eclipse.jface.text.Position;
+import org.eclipse.text.edits.ReplaceEdit;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects any number of edits against one CompilationUnit and applies them in a single
+ * rewrite pass, so a bulk operation costs one file write, one LSP sync, one reparse and
+ * one history entry.
+ *
+ * All positions and indices refer to the tree as it was when the transaction started,
+ * e.g. two inserts into the same body both use indices of the original statement list
+ * (AstRewriter maps them past nodes inserted earlier; inserts at the same index keep
+ * the order they were made in).
+ */
+public class EditTransaction {
+
+    private final String originalCode;
+    private final AstRewriter astRewriter;
+    private final ASTRewrite rewriter;
+    private final List<ReplaceEdit> commentEdits = new ArrayList<>();
+    private final List<TextDelta> appliedDeltas = new ArrayList<>();
+    private int changeCount = 0;
+    // Set when the edits were made on an older tree than cu; null when they target cu itself
+    private final NodeRebaser rebaser;
+    private int unresolvedCount = 0;
+
+    EditTransaction(CompilationUnit cu, String originalCode, AstRewriter astRewriter) {
+        this(cu, originalCode, astRewriter, null);
+    }
+
+    EditTransaction(CompilationUnit cu, String originalCode, AstRewriter astRewriter, NodeRebaser rebaser) {
+        this.originalCode = originalCode;
+        this.astRewriter = astRewriter;
+        this.rewriter = ASTRewrite.create(cu.getAST());
+        this.rebaser = rebaser;
+    }
+
+    public boolean hasChanges() {
+        return changeCount > 0;
+    }
+
+    public int getChangeCount() {
+        return changeCount;
+    }
+
+    /** Edits skipped because their node no longer exists in the tree being rewritten. */
+    public int getUnresolvedCount() {
+        return unresolvedCount;
+    }
+
+    private EditTransaction record(boolean changed) {
+        if (changed) changeCount++;
+        return this;
+    }
+
+    /** The node to rewrite: {@code node} itself, or its counterpart if the edit was made on an older tree. */
+    private <T extends ASTNode> T target(T node) {
+        if (rebaser == null || node == null) return node;
+        return rebaser.rebase(node);
+    }
+
+    /** True (and counted) if any of the nodes could not be found in the tree being rewritten. */
+    private boolean unresolved(ASTNode... nodes) {
+        for (ASTNode node : nodes) {
+            if (node == null) {
+                unresolvedCount++;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // --- Statements ---
+
+    public EditTransaction moveStatement(StatementBlock blockToMove, BodyBlock sourceBody, BodyBlock targetBody, int targetIndex) {
+        Statement statement = target((Statement) blockToMove.getAstNode());
+        Block source = target((Block) sourceBody.getAstNode());
+        Block target = target((Block) targetBody.getAstNode());
+        return unresolved(statement, source, target) ? this
+                : record(astRewriter.moveStatement(rewriter, statement, source, target, targetIndex));
+    }
+
+    public EditTransaction addStatement(BodyBlock targetBody, AddableBlock type, int index) {
+        Block target = target((Block) targetBody.getAstNode());
+        return unresolved(target) ? this : record(astRewriter.addStatement(rewriter, target, type, index));
+    }
+
+    public EditTransaction deleteNode(ASTNode toDelete) {
+        ASTNode target = target(toDelete);
+        return unresolved(target) ? this : record(astRewriter.deleteNode(rewriter, target));
+    }
+
+    public EditTransaction replaceVariableType(VariableDeclarationStatement toReplace, String newTypeName) {
+        VariableDeclarationStatement target = target(toReplace);
+        return unresolved(target) ? this : record(astRewriter.replaceVariableType(rewriter, target, newTypeName));
+    }
+
+    // --- If / Else ---
+
+    public EditTransaction addElseToIfStatement(IfStatement ifStmt) {
+        IfStatement target = target(ifStmt);
+        return unresolved(target) ? this : record(astRewriter.addElseToIfStatement(rewriter, target));
+    }
+
+    public EditTransaction deleteElseFromIfStatement(IfStatement ifStmt) {
+        IfStatement target = target(ifStmt);
+        return unresolved(target) ? this : record(astRewriter.deleteElseFromIfStatement(rewriter, target));
+    }
+
+    public EditTransaction convertElseToElseIf(IfStatement ifStmt) {
+        IfStatement target = target(ifStmt);
+        return unresolved(target) ? this : record(astRewriter.convertElseToElseIf(rewriter, target));
+    }
+
+    // --- Expressions ---
+
+    public EditTransaction replaceExpression(Expression toReplace, AddableExpression type) {
+        Expression target = target(toReplace);
+        return unresolved(target) ? this : record(astRewriter.replaceExpression(rewriter, target, type));
+    }
+
+    public EditTransaction replaceLiteral(Expression toReplace, String newLiteralValue) {
+        Expression target = target(toReplace);
+        return unresolved(target) ? this : record(astRewriter.replaceLiteral(rewriter, target, newLiteralValue));
+    }
+
+    public EditTransaction replaceSimpleName(SimpleName toReplace, String newName) {
+        SimpleName target = target(toReplace);
+        return unresolved(target) ? this : record(astRewriter.replaceSimpleName(rewriter, target, newName));
+    }
+
+    public EditTransaction addStringArgumentToMethodInvocation(MethodInvocation mi, String text) {
+        MethodInvocation target = target(mi);
+        if (unresolved(target)) return this;
+        StringLiteral newArg = rewriter.getAST().newStringLiteral();
+        newArg.setLiteralValue(text);
+        return record(astRewriter.addArgumentToMethodInvocation(rewriter, target, newArg));
+    }
+
+    public EditTransaction addElementToArrayInitializer(ArrayInitializer arrayInit, AddableExpression type, int insertIndex) {
+        ArrayInitializer target = target(arrayInit);
+        return unresolved(target) ? this : record(astRewriter.addElementToArrayInitializer(rewriter, target, type, insertIndex));
+    }
+
+    public EditTransaction deleteElementFromArrayInitializer(ArrayInitializer arrayInit, int elementIndex) {
+        ArrayInitializer target = target(arrayInit);
+        return unresolved(target) ? this : record(astRewriter.deleteElementFromArrayInitializer(rewriter, target, elementIndex));
+    }
+
+    public EditTransaction replaceAssignmentOperator(Assignment assignment, Assignment.Operator newOp) {
+        Assignment target = target(assignment);
+        return unresolved(target) ? this : record(astRewriter.replaceAssignmentOperator(rewriter, target, newOp));
+    }
+
+    public EditTransaction replacePrefixOperator(PrefixExpression prefix, PrefixExpression.Operator newOp) {
+        PrefixExpression target = target(prefix);
+        return unresolved(target) ? this : record(astRewriter.replacePrefixOperator(rewriter, target, newOp));
+    }
+
+    public EditTransaction replacePostfixOperator(PostfixExpression postfix, PostfixExpression.Operator newOp) {
+        PostfixExpression target = target(postfix);
+        return unresolved(target) ? this : record(astRewriter.replacePostfixOperator(rewriter, target, newOp));
+    }
+
+    // --- Comments ---
+
+    public EditTransaction updateComment(Comment commentNode, String newText) {
+        Comment target = target(commentNode);
+        if (unresolved(target)) return this;
+        commentEdits.add(astRewriter.updateComment(target, newText));
+        return record(true);
+    }
+
+    public EditTransaction deleteComment(Comment commentNode) {
+        Comment target = target(commentNode);
+        if (unresolved(target)) return this;
+        commentEdits.add(astRewriter.deleteComment(target));
+        return record(true);
+    }
+
+    /**
+     * Sequential text deltas produced by {@link #apply()}, empty if nothing was applied.
+     */
+    public List<TextDelta> getAppliedDeltas() {
+        return appliedDeltas;
+    }
+
+    /**
+     * Applies every recorded change in one pass.
+     * @return The updated source code, or the original code if the changes could not be applied
+     */
+    String apply() {
+        IDocument document = new Document(originalCode);
+        document.addDocumentListener(new IDocumentListener() {
+            @Override
+            public void documentAboutToBeChanged(DocumentEvent event) {
+                String text = event.getText() != null ? event.getText() : "";
+                appliedDeltas.add(new TextDelta(event.getOffset(), event.getLength(), text));
+            }
+
+            @Override
+            public void documentChanged(DocumentEvent event) {}
+        });
+        try {
+            // Comment ranges may overlap what the rewrite touches (a removed statement takes its
+            // leading comment with it), so they are tracked as document positions instead.
+            List<Position> commentPositions = new ArrayList<>();
+            for (ReplaceEdit edit : commentEdits) {
+                Position position = new Position(edit.getOffset(), edit.getLength());
+                document.addPosition(position);
+                commentPositions.add(position);
+            }
+
+            rewriter.rewriteAST(document, null).apply(document);
+
+            for (int i = 0; i < commentEdits.size(); i++) {
+                Position position = commentPositions.get(i);
+                ReplaceEdit edit = commentEdits.get(i);
+                // Skip comments the rewrite already removed or cut into
+                if (!position.isDeleted() && position.getLength() == edit.getLength()) {
+                    document.replace(position.getOffset(), position.getLength(), edit.getText());
+                }
+            }
+            return document.get();
+        } catch (Exception e) {
+            e.printStackTrace();
+            appliedDeltas.clear();
+            return originalCode;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.botmaker.parser;
+
+import com.botmaker.state.TextDelta;
+import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jdt.core.dom.ASTVisitor;
+import org.eclipse.jdt.core.dom.Comment;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.NodeFinder;
+
+/**
+ * Finds, in a newer tree, the node an edit made on an older tree meant. The node's range is
+ * carried through the text change between the two sources: ranges before or after the change
+ * move with it, ranges around it grow or shrink with it. The node of the same type at the
+ * resulting range is the rebased node; a node the change cut into has none.
+ */
+class NodeRebaser {
+
+    private final CompilationUnit target;
+    private final int changeStart;
+    private final int changeEnd; // in the old source
+    private final int shift;
+
+    NodeRebaser(String fromSource, String toSource, CompilationUnit target) {
+        this.target = target;
+        TextDelta change = TextDelta.between(fromSource, toSource);
+        this.changeStart = change.offset();
+        this.changeEnd = change.offset() + change.length();
+        this.shift = change.sizeChange();
+    }
+
+    /** The matching node of the target tree, or null if the change removed or cut into it. */
+    @SuppressWarnings("unchecked")
+    <T extends ASTNode> T rebase(T node) {
+        if (node.getAST() == target.getAST()) return node; // already in the target tree (e.g. a reused block)
+
+        int start = node.getStartPosition();
+        int end = start + node.getLength();
+        if (end <= changeStart) {
+            // before the change
+        } else if (start >= changeEnd) {
+            start += shift;
+            end += shift;
+        } else if (start <= changeStart && end >= changeEnd) {
+            end += shift;
+        } else {
+            return null;
+        }
+        return (T) (node instanceof Comment ? findComment(node, start, end - start) : findNode(node, start, end - start));
+    }
+
+    private ASTNode findComment(ASTNode node, int start, int length) {
+        for (Object comment : target.getCommentList()) {
+            ASTNode candidate = (ASTNode) comment;
+            if (candidate.getClass() == node.getClass()
+                    && candidate.getStartPosition() == start && candidate.getLength() == length) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    /** Nodes with the same range nest (e.g. a name and its expression), so they are searched by type too. */
+    private ASTNode findNode(ASTNode node, int start, int length) {
+        ASTNode covered = new NodeFinder(target, start, length).getCoveredNode();
+        if (covered == null) return null;
+        ASTNode[] match = new ASTNode[1];
+        covered.accept(new ASTVisitor(true) {
+            @Override
+            public boolean preVisit2(ASTNode candidate) {
+                if (match[0] != null || candidate.getStartPosition() != start || candidate.getLength() != length) {
+                    return false;
+                }
+                if (candidate.getNodeType() == node.getNodeType()) match[0] = candidate;
+                return match[0] == null;
+            }
+        });
+        return match[0];
+    }
+}
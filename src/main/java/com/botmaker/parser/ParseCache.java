@@ -0,0 +1,132 @@
+package com.botmaker.parser;
+
+import com.botmaker.config.Constants;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * LRU cache of parsed CompilationUnits keyed by the source text itself (String caches its
+ * hash code, and equals only compares in full on a hash match).
+ * Bounded both by entry count and by an estimate of the retained AST size, so undo/redo
+ * and switching back to a recent version skip both the structural and the binding parse.
+ *
+ * Block trees are not cached: installing a tree moves its reused blocks onto the next AST, so
+ * a cached tree would not stay tied to its source. Returning to a version instead rebuilds
+ * only the statements that differ from the installed tree (see BlockFactory's reuse).
+ *
+ * Cached units are never modified (ASTRewrite records edits outside the tree), so the parse
+ * and binding workers may read the same unit concurrently.
+ */
+public class ParseCache {
+
+    private final int maxEntries;
+    private final long maxBytes;
+    private final boolean enableLogging;
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long estimatedBytes = 0;
+
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+
+    public ParseCache() {
+        this(false);
+    }
+
+    public ParseCache(boolean enableLogging) {
+        this(Constants.PARSE_CACHE_MAX_ENTRIES, Constants.PARSE_CACHE_MAX_BYTES, enableLogging);
+    }
+
+    public ParseCache(int maxEntries, long maxBytes, boolean enableLogging) {
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+        this.enableLogging = enableLogging;
+    }
+
+    /** Returns the cached structural (binding-free) parse of this source, or null. */
+    public synchronized CompilationUnit getStructural(String source) {
+        Entry entry = entries.get(source);
+        return record(entry != null ? entry.structural : null);
+    }
+
+    /** Returns the cached binding-resolved parse of this source, or null. */
+    public synchronized CompilationUnit getBound(String source) {
+        Entry entry = entries.get(source);
+        return record(entry != null ? entry.bound : null);
+    }
+
+    public synchronized void putStructural(String source, CompilationUnit unit) {
+        Entry entry = entryFor(source);
+        if (entry.structural == null) {
+            estimatedBytes += (long) source.length() * Constants.PARSE_CACHE_STRUCTURAL_BYTES_PER_CHAR;
+        }
+        entry.structural = unit;
+        evictIfNeeded();
+    }
+
+    public synchronized void putBound(String source, CompilationUnit unit) {
+        Entry entry = entryFor(source);
+        if (entry.bound == null) {
+            estimatedBytes += (long) source.length() * Constants.PARSE_CACHE_BOUND_BYTES_PER_CHAR;
+        }
+        entry.bound = unit;
+        evictIfNeeded();
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        estimatedBytes = 0;
+    }
+
+    public synchronized String getStats() {
+        long lookups = hits + misses;
+        double hitRate = lookups == 0 ? 0 : (100.0 * hits / lookups);
+        return String.format("ParseCache{entries=%d, ~%d KB, hits=%d, misses=%d, hitRate=%.1f%%, evictions=%d}",
+                entries.size(), estimatedBytes / 1024, hits, misses, hitRate, evictions);
+    }
+
+    private CompilationUnit record(CompilationUnit unit) {
+        if (unit != null) hits++;
+        else misses++;
+        if (enableLogging && (hits + misses) % Constants.PARSE_CACHE_REPORT_INTERVAL == 0) {
+            System.out.println(getStats());
+        }
+        return unit;
+    }
+
+    private Entry entryFor(String source) {
+        return entries.computeIfAbsent(source, s -> new Entry(s.length()));
+    }
+
+    private void evictIfNeeded() {
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        // Always keep the most recent entry, even if it alone exceeds the byte budget
+        while (entries.size() > 1 && (entries.size() > maxEntries || estimatedBytes > maxBytes) && it.hasNext()) {
+            Entry eldest = it.next().getValue();
+            estimatedBytes -= eldest.estimatedBytes();
+            it.remove();
+            evictions++;
+        }
+    }
+
+    private static final class Entry {
+        private final int sourceLength;
+        private CompilationUnit structural;
+        private CompilationUnit bound;
+
+        private Entry(int sourceLength) {
+            this.sourceLength = sourceLength;
+        }
+
+        private long estimatedBytes() {
+            long bytes = 0;
+            if (structural != null) bytes += (long) sourceLength * Constants.PARSE_CACHE_STRUCTURAL_BYTES_PER_CHAR;
+            if (bound != null) bytes += (long) sourceLength * Constants.PARSE_CACHE_BOUND_BYTES_PER_CHAR;
+            return bytes;
+        }
+    }
+}
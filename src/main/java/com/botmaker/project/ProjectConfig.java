@@ -10,7 +10,12 @@ import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Configuration for BotMaker projects, stored in projects/.botmaker-config.json
@@ -24,9 +29,11 @@ public class ProjectConfig {
 
     private String lastOpenedProject;
     private List<ProjectEntry> recentProjects;
+    private Map<String, List<String>> collapsedBlocks; // project name -> IDs of collapsed bodies
 
     public ProjectConfig() {
         this.recentProjects = new ArrayList<>();
+        this.collapsedBlocks = new HashMap<>();
     }
 
     public String getLastOpenedProject() {
@@ -106,6 +113,29 @@ public class ProjectConfig {
         return config.getLastOpenedProject();
     }
 
+    /**
+     * IDs of the block bodies left collapsed in a project, empty if none
+     */
+    public static Set<String> getCollapsedBlocks(String projectName) {
+        ProjectConfig config = load();
+        if (config.collapsedBlocks == null) return new HashSet<>();
+        return new HashSet<>(config.collapsedBlocks.getOrDefault(projectName, List.of()));
+    }
+
+    /**
+     * Replaces the collapsed block IDs stored for a project and saves
+     */
+    public static void saveCollapsedBlocks(String projectName, Collection<String> blockIds) {
+        ProjectConfig config = load();
+        if (config.collapsedBlocks == null) config.collapsedBlocks = new HashMap<>();
+        if (blockIds.isEmpty()) {
+            config.collapsedBlocks.remove(projectName);
+        } else {
+            config.collapsedBlocks.put(projectName, new ArrayList<>(blockIds));
+        }
+        config.save();
+    }
+
     /**
      * Represents a recent project entry
      */
@@ -1,49 +1,51 @@
 package com.botmaker.runtime;
 
 import com.botmaker.config.ApplicationConfig;
+import com.botmaker.config.Constants;
 import com.botmaker.validation.DiagnosticsManager;
 import javafx.application.Platform;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
 
 public class CodeExecutionService {
 
-    private final Consumer<String> appendOutputConsumer;
+    private final OutputSpool outputSpool;
     private final Runnable clearOutputConsumer;
     private final Consumer<String> statusConsumer;
     private final Consumer<String> setOutputConsumer;
     private final DiagnosticsManager diagnosticsManager;
     private final ApplicationConfig config;
+    private final InProcessCompiler compiler = new InProcessCompiler();
+    private final CompileCache compileCache;
+    private final WarmJvmPool jvmPool;
+    private volatile InProcessCompiler.Result lastCompileResult;
 
     private volatile Process currentRunningProcess;
     private final AtomicBoolean isRunning = new AtomicBoolean(false);
 
-    private static final int MAX_UI_BUFFER_SIZE = 4096;
-    private static final int UI_UPDATE_RATE_MS = 100;
-
     public CodeExecutionService(
-            Consumer<String> appendOutputConsumer,
+            OutputSpool outputSpool,
             Runnable clearOutputConsumer,
             Consumer<String> setOutputConsumer,
             Consumer<String> statusConsumer,
             DiagnosticsManager diagnosticsManager,
             ApplicationConfig config) {
-        this.appendOutputConsumer = appendOutputConsumer;
+        this.outputSpool = outputSpool;
         this.clearOutputConsumer = clearOutputConsumer;
         this.setOutputConsumer = setOutputConsumer;
         this.statusConsumer = statusConsumer;
         this.diagnosticsManager = diagnosticsManager;
         this.config = config;
+        this.compileCache = new CompileCache(config.getCompiledOutputPath());
+        compiler.warmUpAsync();
+        this.jvmPool = new WarmJvmPool(config.getJavaExecutable(), Constants.RUN_JVM_POOL_SIZE);
+        jvmPool.start();
     }
 
     /**
@@ -73,23 +75,18 @@ public class CodeExecutionService {
             }
 
             // 3. Setup Execution
-            Platform.runLater(() -> {
-                statusConsumer.accept("Running... (Press Stop to terminate)");
-                clearOutputConsumer.run();
-            });
+            // Cleared here rather than on the FX thread, so it cannot land after the first output
+            clearOutputConsumer.run();
+            Platform.runLater(() -> statusConsumer.accept("Running... (Press Stop to terminate)"));
 
             isRunning.set(true);
 
-            String classPath = compiledOutputPath.toString();
-            String className = config.getMainClassName();
-            String javaExecutable = config.getJavaExecutable();
-
-            ProcessBuilder pb = new ProcessBuilder(javaExecutable, "-cp", classPath, className);
-            currentRunningProcess = pb.start();
+            // Handed to a JVM that is already up; a fresh one is started for the next run
+            currentRunningProcess = jvmPool.launch(compiledOutputPath, config.getMainClassName());
 
-            // 4. Start IO (Leaky Bucket)
-            startLeakyBucketReader(currentRunningProcess.getInputStream());
-            startLeakyBucketReader(currentRunningProcess.getErrorStream());
+            // 4. Start IO
+            startSpoolReader(currentRunningProcess.getInputStream(), "Stdout-Spooler");
+            startSpoolReader(currentRunningProcess.getErrorStream(), "Stderr-Spooler");
 
             // 5. WAIT FOR PROCESS (BLOCKING)
             // This keeps the caller thread alive until the process finishes or is killed.
@@ -116,7 +113,7 @@ public class CodeExecutionService {
         }
     }
 
-    // ... (compileCode, compileAndWait, stopRunningProgram, isRunning, startLeakyBucketReader remain unchanged)
+    // ... (compileCode, compileAndWait, stopRunningProgram, isRunning, startSpoolReader remain unchanged)
 
     public void compileCode(String code) {
         // Need to wrap in thread because we made runCode blocking, but compileCode is usually called from UI
@@ -139,6 +136,45 @@ public class CodeExecutionService {
         Files.writeString(sourceFilePath, code);
         Files.createDirectories(compiledOutputPath);
 
+        if (!compiler.isAvailable()) {
+            return compileWithJavacProcess(sourceFilePath, compiledOutputPath);
+        }
+
+        // Run and Debug both come through here; an unchanged bot reuses the classes on disk
+        String cacheKey = CompileCache.key(code, InProcessCompiler.getOptions(), InProcessCompiler.getClassPath());
+        if (compileCache.lookup(cacheKey)) {
+            System.out.println("Source unchanged, skipping compile. " + compileCache.report());
+            return true;
+        }
+
+        // Compiled in this JVM from the code in memory; only the class files touch the disk
+        InProcessCompiler.Result result = compiler.compile(code, sourceFilePath);
+        lastCompileResult = result;
+        System.out.println("Compiled in " + result.elapsedMs() + " ms. " + compileCache.report());
+
+        if (!result.success()) {
+            String errors = result.formatProblems();
+            Platform.runLater(() -> setOutputConsumer.accept("Compilation Failed:\n" + errors));
+            return false;
+        }
+        compileCache.invalidate();
+        InProcessCompiler.writeClasses(result.classes(), compiledOutputPath);
+        compileCache.store(cacheKey, result.classes());
+        return true;
+    }
+
+    /**
+     * Structured outcome of the last in-process compile (messages with positions, class bytes),
+     * or null if nothing has been compiled in process yet.
+     */
+    public InProcessCompiler.Result getLastCompileResult() {
+        return lastCompileResult;
+    }
+
+    /** Fallback for runtimes without javax.tools: forks the JDK's javac. */
+    private boolean compileWithJavacProcess(Path sourceFilePath, Path compiledOutputPath) throws IOException, InterruptedException {
+        // Classes written by javac are not tracked by the cache
+        compileCache.invalidate();
         String javacExecutable = Paths.get(System.getProperty("java.home"), "bin", "javac").toString();
         ProcessBuilder pb = new ProcessBuilder(javacExecutable, "-g", "-d", compiledOutputPath.toString(), sourceFilePath.toString());
         Process process = pb.start();
@@ -164,54 +200,27 @@ public class CodeExecutionService {
         return isRunning.get();
     }
 
-    private void startLeakyBucketReader(InputStream inputStream) {
-        final StringBuilder buffer = new StringBuilder();
-        final ScheduledExecutorService uiUpdater = Executors.newSingleThreadScheduledExecutor();
-
-        uiUpdater.scheduleAtFixedRate(() -> {
-            if (!isRunning.get() && buffer.length() == 0) {
-                uiUpdater.shutdown();
-                return;
-            }
-
-            String textToSend = "";
-            synchronized (buffer) {
-                if (buffer.length() > 0) {
-                    textToSend = buffer.toString();
-                    buffer.setLength(0);
-                }
-            }
-
-            if (!textToSend.isEmpty()) {
-                String finalTx = textToSend;
-                Platform.runLater(() -> appendOutputConsumer.accept(finalTx));
-            }
-        }, UI_UPDATE_RATE_MS, UI_UPDATE_RATE_MS, TimeUnit.MILLISECONDS);
+    /** Stops the spare JVMs kept for upcoming runs. */
+    public void shutdown() {
+        jvmPool.shutdown();
+    }
 
-        new Thread(() -> {
-            byte[] readBuf = new byte[1024];
+    /**
+     * Copies a stream of the running program into the output spool. Nothing is dropped: the
+     * spool keeps every byte on disk-backed memory and the console decides what to show.
+     */
+    private void startSpoolReader(InputStream inputStream, String threadName) {
+        Thread reader = new Thread(() -> {
+            byte[] readBuf = new byte[8192];
             int len;
-            long droppedBytes = 0;
             try {
                 while ((len = inputStream.read(readBuf)) != -1) {
-                    synchronized (buffer) {
-                        if (buffer.length() >= MAX_UI_BUFFER_SIZE) {
-                            droppedBytes += len;
-                        } else {
-                            if (droppedBytes > 0) {
-                                buffer.append("\n[... SKIPPED " + droppedBytes + " BYTES ...]\n");
-                                droppedBytes = 0;
-                            }
-                            int spaceLeft = MAX_UI_BUFFER_SIZE - buffer.length();
-                            int writeLen = Math.min(len, spaceLeft);
-                            buffer.append(new String(readBuf, 0, writeLen, StandardCharsets.UTF_8));
-                        }
-                    }
+                    outputSpool.append(readBuf, 0, len);
                 }
             } catch (IOException ignored) {
-            } finally {
-                uiUpdater.shutdown();
             }
-        }, "Leaky-Reader").start();
+        }, threadName);
+        reader.setDaemon(true);
+        reader.start();
     }
 }
\ No newline at end of file
@@ -0,0 +1,119 @@
+package com.botmaker.runtime;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Remembers which source produced the classes currently in the output directory, so Run and
+ * Debug can skip compiling an unchanged bot. The key hashes the source, the compiler options,
+ * the classpath and the JDK; a small index next to the classes records the key and the class
+ * files it produced with their size and content hash, and a hit also requires those files to
+ * still be there unchanged.
+ */
+public class CompileCache {
+
+    private static final String INDEX_FILE = ".botmaker-compile-index";
+
+    private final Path outputDir;
+    private int hits;
+    private int misses;
+
+    public CompileCache(Path outputDir) {
+        this.outputDir = outputDir;
+    }
+
+    /** Cache key for compiling {@code code} with {@code options} against {@code classPath} on this JDK. */
+    public static String key(String code, List<String> options, List<Path> classPath) {
+        MessageDigest digest = sha256();
+        digest.update(code.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update(String.join(" ", options).getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        for (Path entry : classPath) {
+            digest.update(entry.toAbsolutePath().toString().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+        }
+        digest.update((Runtime.version() + "|" + System.getProperty("java.home")).getBytes(StandardCharsets.UTF_8));
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static String hash(byte[] bytes) {
+        return HexFormat.of().formatHex(sha256().digest(bytes));
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** True (and counted as a hit) if the output directory holds the classes compiled for {@code key}. */
+    public synchronized boolean lookup(String key) {
+        boolean hit = matches(key);
+        if (hit) hits++; else misses++;
+        return hit;
+    }
+
+    private boolean matches(String key) {
+        Path index = outputDir.resolve(INDEX_FILE);
+        if (!Files.isRegularFile(index)) return false;
+        try {
+            List<String> lines = Files.readAllLines(index, StandardCharsets.UTF_8);
+            if (lines.isEmpty() || !lines.get(0).equals(key)) return false;
+            // One "path size hash" line per class file; the size check skips hashing most stale files
+            for (String line : lines.subList(1, lines.size())) {
+                String[] parts = line.split(" ");
+                if (parts.length != 3) return false;
+                Path classFile = outputDir.resolve(parts[0]);
+                if (!Files.isRegularFile(classFile) || Files.size(classFile) != Long.parseLong(parts[1])) return false;
+                if (!hash(Files.readAllBytes(classFile)).equals(parts[2])) return false;
+            }
+            return lines.size() > 1;
+        } catch (IOException | RuntimeException e) {
+            return false;
+        }
+    }
+
+    /** Records that the classes just written to the output directory were compiled for {@code key}. */
+    public synchronized void store(String key, Map<String, byte[]> classes) {
+        List<String> lines = new ArrayList<>();
+        lines.add(key);
+        for (Map.Entry<String, byte[]> entry : classes.entrySet()) {
+            lines.add(entry.getKey().replace('.', '/') + ".class " + entry.getValue().length + " " + hash(entry.getValue()));
+        }
+        try {
+            Path index = outputDir.resolve(INDEX_FILE);
+            Path tmp = outputDir.resolve(INDEX_FILE + ".tmp");
+            Files.write(tmp, lines, StandardCharsets.UTF_8);
+            Files.move(tmp, index, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Failed to write compile cache index: " + e.getMessage());
+        }
+    }
+
+    /** Forgets the recorded key, e.g. after a compile that left the output directory in an unknown state. */
+    public synchronized void invalidate() {
+        try {
+            Files.deleteIfExists(outputDir.resolve(INDEX_FILE));
+        } catch (IOException e) {
+            System.err.println("Failed to clear compile cache index: " + e.getMessage());
+        }
+    }
+
+    public synchronized String report() {
+        int total = hits + misses;
+        int rate = total == 0 ? 0 : Math.round(100f * hits / total);
+        return String.format("Compile cache: %d/%d hits (%d%%)", hits, total, rate);
+    }
+}
@@ -8,7 +8,6 @@ import com.botmaker.events.EventBus;
 import com.botmaker.parser.BlockFactory;
 import com.sun.jdi.connect.IllegalConnectorArgumentsException;
 import com.sun.jdi.event.LocatableEvent;
-import javafx.application.Platform;
 import org.eclipse.jdt.core.dom.ASTNode;
 import org.eclipse.jdt.core.dom.CompilationUnit;
 
@@ -92,7 +91,7 @@ public class DebuggingManager {
                 eventBus.publish(new CoreApplicationEvents.StatusMessageEvent("Starting debugger on port " + freePort + "..."));
                 eventBus.publish(new CoreApplicationEvents.DebugSessionStartedEvent());
 
-                Platform.runLater(() -> eventBus.publish(new CoreApplicationEvents.OutputClearedEvent()));
+                eventBus.publish(new CoreApplicationEvents.OutputClearedEvent());
 
                 String classPath = config.getCompiledOutputPath().toString();
                 String className = config.getMainClassName();
@@ -178,7 +177,8 @@ public class DebuggingManager {
             try (Scanner s = new Scanner(stream)) {
                 while (s.hasNextLine()) {
                     String line = s.nextLine();
-                    Platform.runLater(() -> eventBus.publish(new CoreApplicationEvents.OutputAppendedEvent(line + "\n")));
+                    // Lines are batched into the console once per frame by the UI
+                    eventBus.publish(new CoreApplicationEvents.OutputAppendedEvent(line + "\n"));
                 }
             }
         }).start();
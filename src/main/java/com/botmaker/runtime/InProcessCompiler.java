@@ -0,0 +1,168 @@
+package com.botmaker.runtime;
+
+import javax.tools.*;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Compiles the bot's source with the javax.tools compiler of the running JDK instead of
+ * starting the javac binary. The compiler and its file manager stay warm between compiles;
+ * the source is read from memory and the class files are produced in memory, so callers can
+ * keep the bytes or write them out with {@link #writeClasses}.
+ */
+public class InProcessCompiler {
+
+    // -implicit:none: only the bot's own source produces class files
+    private static final List<String> OPTIONS = List.of("-g", "-proc:none", "-implicit:none");
+    // The bot is a single self-contained file: it sees the JDK only, not BotMaker's own
+    // classpath (the default for the in-process compiler) nor stale classes in the output dir
+    private static final List<Path> CLASS_PATH = List.of();
+
+    private final JavaCompiler compiler;
+    private final StandardJavaFileManager standardFileManager;
+
+    public InProcessCompiler() {
+        this.compiler = ToolProvider.getSystemJavaCompiler();
+        this.standardFileManager = compiler != null ? compiler.getStandardFileManager(null, null, null) : null;
+        if (standardFileManager != null) {
+            try {
+                standardFileManager.setLocationFromPaths(StandardLocation.CLASS_PATH, CLASS_PATH);
+            } catch (IOException e) {
+                throw new IllegalStateException("Cannot set compiler classpath", e);
+            }
+        }
+    }
+
+    /** Options every compile uses; part of the compile cache key. */
+    public static List<String> getOptions() {
+        return OPTIONS;
+    }
+
+    /** Classpath every compile uses; part of the compile cache key. */
+    public static List<Path> getClassPath() {
+        return CLASS_PATH;
+    }
+
+    /** False when running on a JRE without the compiler module. */
+    public boolean isAvailable() {
+        return compiler != null;
+    }
+
+    /** A compiler message with its position in the source (line and column are 1-based, -1 if unknown). */
+    public record Problem(Diagnostic.Kind kind, long line, long column, String message) {
+        public boolean isError() {
+            return kind == Diagnostic.Kind.ERROR;
+        }
+
+        @Override
+        public String toString() {
+            String where = line > 0 ? "line " + line + (column > 0 ? ":" + column : "") + ": " : "";
+            return where + kind.name().toLowerCase() + ": " + message;
+        }
+    }
+
+    /** Outcome of one compile. {@code classes} maps binary class names to class file bytes. */
+    public record Result(boolean success, List<Problem> problems, Map<String, byte[]> classes, long elapsedMs) {
+        public String formatProblems() {
+            StringBuilder sb = new StringBuilder();
+            for (Problem problem : problems) {
+                sb.append(problem).append('\n');
+            }
+            return sb.toString();
+        }
+    }
+
+    /**
+     * Compiles one compilation unit held in memory.
+     * @param sourcePath Path the source is reported under (e.g. the project file)
+     */
+    public synchronized Result compile(String code, Path sourcePath) {
+        if (compiler == null) {
+            throw new IllegalStateException("No system Java compiler available");
+        }
+        long start = System.nanoTime();
+
+        JavaFileObject source = new StringSource(sourcePath.toUri(), code);
+        Map<String, byte[]> classes = new LinkedHashMap<>();
+        DiagnosticCollector<JavaFileObject> collector = new DiagnosticCollector<>();
+
+        MemoryFileManager fileManager = new MemoryFileManager(standardFileManager, classes);
+        boolean success = compiler.getTask(null, fileManager, collector, OPTIONS, null, List.of(source)).call();
+
+        List<Problem> problems = new ArrayList<>();
+        for (Diagnostic<? extends JavaFileObject> d : collector.getDiagnostics()) {
+            problems.add(new Problem(d.getKind(), d.getLineNumber(), d.getColumnNumber(), d.getMessage(Locale.getDefault())));
+        }
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        return new Result(success, problems, success ? classes : Map.of(), elapsedMs);
+    }
+
+    /** Writes compiled classes under {@code outputDir} in package directories, like javac -d. */
+    public static void writeClasses(Map<String, byte[]> classes, Path outputDir) throws IOException {
+        for (Map.Entry<String, byte[]> entry : classes.entrySet()) {
+            Path classFile = outputDir.resolve(entry.getKey().replace('.', '/') + ".class");
+            Files.createDirectories(classFile.getParent());
+            Files.write(classFile, entry.getValue());
+        }
+    }
+
+    /** Compiles a trivial class in the background so the first real compile finds javac loaded and JIT-warmed. */
+    public void warmUpAsync() {
+        if (compiler == null) return;
+        Thread warmUp = new Thread(() -> {
+            try {
+                Result result = compile("class BotMakerWarmUp { void run() { System.out.println(\"\"); } }",
+                        Path.of("BotMakerWarmUp.java").toAbsolutePath());
+                System.out.println("In-process compiler warmed up in " + result.elapsedMs() + " ms");
+            } catch (Exception e) {
+                System.err.println("Compiler warm-up failed: " + e.getMessage());
+            }
+        }, "Compiler-WarmUp");
+        warmUp.setDaemon(true);
+        warmUp.start();
+    }
+
+    private static final class StringSource extends SimpleJavaFileObject {
+        private final String code;
+
+        StringSource(URI uri, String code) {
+            super(uri, Kind.SOURCE);
+            this.code = code;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return code;
+        }
+    }
+
+    /** Sends class output to memory; everything else (platform classes, etc.) goes to the shared manager. */
+    private static final class MemoryFileManager extends ForwardingJavaFileManager<StandardJavaFileManager> {
+        private final Map<String, byte[]> classes;
+
+        MemoryFileManager(StandardJavaFileManager fileManager, Map<String, byte[]> classes) {
+            super(fileManager);
+            this.classes = classes;
+        }
+
+        @Override
+        public JavaFileObject getJavaFileForOutput(Location location, String className, JavaFileObject.Kind kind, FileObject sibling) {
+            return new SimpleJavaFileObject(URI.create("mem:///" + className.replace('.', '/') + kind.extension), kind) {
+                @Override
+                public OutputStream openOutputStream() {
+                    return new ByteArrayOutputStream() {
+                        @Override
+                        public void close() {
+                            classes.put(className, toByteArray());
+                        }
+                    };
+                }
+            };
+        }
+    }
+}
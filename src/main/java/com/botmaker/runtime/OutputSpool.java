@@ -0,0 +1,239 @@
+package com.botmaker.runtime;
+
+import com.botmaker.config.Constants;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lossless store for console output. Bytes are appended to memory-mapped segment files
+ * ({@link Constants#OUTPUT_SPOOL_SEGMENT_BYTES} each) and the start offset of every line is
+ * kept in a chunked index, so the whole history stays available without living on the heap.
+ * Text is only decoded per line when read, so multi-byte characters are never split.
+ *
+ * Clearing keeps the mapped segments and writes over them, so repeated runs reuse the same
+ * files. All methods are thread-safe; readers take the lock per call, not for a whole scan.
+ */
+public class OutputSpool {
+
+    private static final int INDEX_CHUNK = 8192;
+
+    private final long segmentBytes;
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+    private Path directory;
+
+    private long size;
+    // lineStarts[i] is the byte offset where line i begins; line 0 always begins at 0
+    private final List<long[]> lineStarts = new ArrayList<>();
+    private int lineStartCount;
+    private int generation; // bumped by every clear
+
+    private volatile Runnable onChange;
+
+    public OutputSpool() {
+        this(Constants.OUTPUT_SPOOL_SEGMENT_BYTES);
+    }
+
+    public OutputSpool(long segmentBytes) {
+        this.segmentBytes = segmentBytes;
+        addLineStart(0);
+    }
+
+    /** Called (on the writing thread) after every append or clear. */
+    public void setOnChange(Runnable onChange) {
+        this.onChange = onChange;
+    }
+
+    public void append(String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        append(bytes, 0, bytes.length);
+    }
+
+    public void append(byte[] buffer, int offset, int length) {
+        if (length <= 0) return;
+        synchronized (this) {
+            try {
+                write(buffer, offset, length);
+            } catch (IOException e) {
+                System.err.println("Output spool write failed: " + e.getMessage());
+                return;
+            }
+            for (int i = 0; i < length; i++) {
+                if (buffer[offset + i] == '\n') addLineStart(size + i + 1);
+            }
+            size += length;
+        }
+        notifyChange();
+    }
+
+    /** Forgets all output; the mapped files are kept for reuse. */
+    public void clear() {
+        synchronized (this) {
+            size = 0;
+            generation++;
+            lineStarts.clear();
+            lineStartCount = 0;
+            addLineStart(0);
+        }
+        notifyChange();
+    }
+
+    private void notifyChange() {
+        Runnable listener = onChange;
+        if (listener != null) listener.run();
+    }
+
+    /**
+     * Number of clears so far. Lets a reader tell a clear followed by new output apart from
+     * output that only grew, even when the line count ends up the same or higher.
+     */
+    public synchronized int generation() {
+        return generation;
+    }
+
+    /** Total bytes written since the last clear. */
+    public synchronized long size() {
+        return size;
+    }
+
+    /** Number of lines, counting an unterminated last line but not an empty one after a final newline. */
+    public synchronized int lineCount() {
+        if (lineStartCount > 1 && lineStart(lineStartCount - 1) == size) return lineStartCount - 1;
+        return size == 0 ? 0 : lineStartCount;
+    }
+
+    /**
+     * Text of line {@code index} without its line terminator. Lines longer than
+     * {@code maxBytes} are cut and end with an ellipsis.
+     */
+    public synchronized String readLine(int index, int maxBytes) {
+        byte[] bytes = readLineBytes(index, maxBytes);
+        String text = new String(bytes, StandardCharsets.UTF_8);
+        return lineLength(index) > maxBytes ? text + "…" : text;
+    }
+
+    /** Lines {@code from} (inclusive) to {@code to} (exclusive), joined with newlines. */
+    public synchronized String readLines(int from, int to, int maxBytesPerLine) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = Math.max(0, from); i < Math.min(to, lineCount()); i++) {
+            if (sb.length() > 0) sb.append('\n');
+            sb.append(readLine(i, maxBytesPerLine));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * First line at or after {@code fromLine} (before it when searching backwards) containing
+     * {@code needle}, ignoring case, or -1. Each line is decoded on its own, so the scan holds
+     * one line at a time.
+     */
+    public int find(String needle, int fromLine, boolean forward) {
+        if (needle == null || needle.isEmpty()) return -1;
+        String lowerNeedle = needle.toLowerCase();
+        int count = lineCount();
+        int step = forward ? 1 : -1;
+        for (int i = fromLine; i >= 0 && i < count; i += step) {
+            if (lineContains(i, lowerNeedle)) return i;
+        }
+        return -1;
+    }
+
+    /** True if line {@code index} contains {@code lowerNeedle} (already lower-cased), ignoring case. */
+    public boolean lineContains(int index, String lowerNeedle) {
+        String line;
+        synchronized (this) {
+            if (index >= lineCount()) return false; // cleared meanwhile
+            line = new String(readLineBytes(index, Integer.MAX_VALUE), StandardCharsets.UTF_8);
+        }
+        return line.toLowerCase().contains(lowerNeedle);
+    }
+
+    /** True if the last line has no line terminator yet, i.e. more text may still be added to it. */
+    public synchronized boolean hasOpenLine() {
+        return size > 0 && lineStart(lineStartCount - 1) != size;
+    }
+
+    private byte[] readLineBytes(int index, int maxBytes) {
+        long start = lineStart(index);
+        int length = (int) Math.min(lineLength(index), maxBytes);
+        byte[] bytes = new byte[length];
+        read(start, bytes, length);
+        return bytes;
+    }
+
+    private long lineLength(int index) {
+        long start = lineStart(index);
+        long end = index + 1 < lineStartCount ? lineStart(index + 1) - 1 : size; // drop '\n'
+        if (end > start && byteAt(end - 1) == '\r') end--;
+        return Math.max(0, end - start);
+    }
+
+    // --- Line index ---
+
+    private void addLineStart(long offset) {
+        int chunk = lineStartCount / INDEX_CHUNK;
+        if (chunk == lineStarts.size()) lineStarts.add(new long[INDEX_CHUNK]);
+        lineStarts.get(chunk)[lineStartCount % INDEX_CHUNK] = offset;
+        lineStartCount++;
+    }
+
+    private long lineStart(int index) {
+        return lineStarts.get(index / INDEX_CHUNK)[index % INDEX_CHUNK];
+    }
+
+    // --- Segments ---
+
+    private void write(byte[] buffer, int offset, int length) throws IOException {
+        long position = size;
+        while (length > 0) {
+            MappedByteBuffer segment = segment((int) (position / segmentBytes));
+            int within = (int) (position % segmentBytes);
+            int n = (int) Math.min(length, segmentBytes - within);
+            segment.put(within, buffer, offset, n);
+            position += n;
+            offset += n;
+            length -= n;
+        }
+    }
+
+    private void read(long position, byte[] target, int length) {
+        int offset = 0;
+        while (length > 0) {
+            MappedByteBuffer segment = segments.get((int) (position / segmentBytes));
+            int within = (int) (position % segmentBytes);
+            int n = (int) Math.min(length, segmentBytes - within);
+            segment.get(within, target, offset, n);
+            position += n;
+            offset += n;
+            length -= n;
+        }
+    }
+
+    private byte byteAt(long position) {
+        return segments.get((int) (position / segmentBytes)).get((int) (position % segmentBytes));
+    }
+
+    private MappedByteBuffer segment(int index) throws IOException {
+        while (segments.size() <= index) {
+            if (directory == null) {
+                directory = Files.createTempDirectory("botmaker-output");
+                directory.toFile().deleteOnExit();
+            }
+            Path file = directory.resolve("segment-" + segments.size() + ".bin");
+            file.toFile().deleteOnExit();
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                // The mapping stays valid after the channel is closed
+                segments.add(channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes));
+            }
+        }
+        return segments.get(index);
+    }
+}
@@ -0,0 +1,123 @@
+package com.botmaker.runtime;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+
+/**
+ * Keeps JVMs started and waiting so a Run does not pay JVM startup. Each JVM runs
+ * {@link WarmLauncher} and is used for exactly one program run, then discarded; a replacement
+ * is started in the background as soon as one is taken, so runs stay as isolated as with a
+ * fresh `java` launch.
+ */
+public class WarmJvmPool {
+
+    private final String javaExecutable;
+    private final int size;
+    private final LinkedBlockingDeque<Process> idle = new LinkedBlockingDeque<>();
+    private final ExecutorService spawner = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "Warm-JVM-Spawner");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private Path launcherDir;
+    private volatile boolean closed = false;
+    private int warmLaunches;
+    private int coldLaunches;
+
+    public WarmJvmPool(String javaExecutable, int size) {
+        this.javaExecutable = javaExecutable;
+        this.size = size;
+        // Idle JVMs would otherwise outlive the application
+        Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown, "Warm-JVM-Cleanup"));
+    }
+
+    /** Starts filling the pool in the background. */
+    public void start() {
+        for (int i = 0; i < size; i++) {
+            replenish();
+        }
+    }
+
+    /**
+     * Starts {@code mainClass} from {@code classpathDir}, in a waiting JVM if one is ready.
+     * @return The process running the program; its streams are the program's streams
+     */
+    public Process launch(Path classpathDir, String mainClass) throws IOException {
+        Process process;
+        while ((process = idle.poll()) != null && !process.isAlive()) {
+            // Spare JVM died while idle, try the next one
+        }
+        synchronized (this) {
+            if (process != null) warmLaunches++; else coldLaunches++;
+        }
+        if (process == null) {
+            process = spawn();
+        }
+        replenish();
+
+        OutputStream stdin = process.getOutputStream();
+        stdin.write((mainClass + "\t" + classpathDir.toAbsolutePath() + "\n").getBytes(StandardCharsets.UTF_8));
+        stdin.flush();
+        System.out.println(report());
+        return process;
+    }
+
+    private void replenish() {
+        if (closed) return;
+        spawner.execute(() -> {
+            if (closed || idle.size() >= size) return;
+            try {
+                Process process = spawn();
+                if (closed) {
+                    process.destroy();
+                } else {
+                    idle.add(process);
+                }
+            } catch (IOException e) {
+                System.err.println("Failed to start spare JVM: " + e.getMessage());
+            }
+        });
+    }
+
+    private Process spawn() throws IOException {
+        ProcessBuilder pb = new ProcessBuilder(javaExecutable, "-cp", launcherDir().toString(), WarmLauncher.class.getName());
+        return pb.start();
+    }
+
+    /** Copies the launcher class to a directory of its own, so spare JVMs load nothing else from BotMaker. */
+    private synchronized Path launcherDir() throws IOException {
+        if (launcherDir != null) return launcherDir;
+        String resource = WarmLauncher.class.getName().replace('.', '/') + ".class";
+        Path dir = Files.createTempDirectory("botmaker-launcher");
+        Path classFile = dir.resolve(resource);
+        Files.createDirectories(classFile.getParent());
+        try (InputStream in = WarmLauncher.class.getClassLoader().getResourceAsStream(resource)) {
+            if (in == null) throw new IOException("Launcher class not found: " + resource);
+            Files.copy(in, classFile);
+        }
+        launcherDir = dir;
+        return dir;
+    }
+
+    public synchronized String report() {
+        return "Program launches - warm: " + warmLaunches + ", cold: " + coldLaunches;
+    }
+
+    /** Stops spare JVMs; programs already launched keep running. */
+    public void shutdown() {
+        closed = true;
+        spawner.shutdownNow();
+        Process process;
+        while ((process = idle.poll()) != null) {
+            process.destroyForcibly();
+        }
+    }
+}
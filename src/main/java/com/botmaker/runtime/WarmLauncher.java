@@ -0,0 +1,70 @@
+package com.botmaker.runtime;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+/**
+ * Entry point of the spare JVMs kept by {@link WarmJvmPool}. It starts, warms up, then waits
+ * for one line on stdin ("mainClass TAB classpathDir"), loads the bot in a fresh class loader
+ * and runs its main method. Everything after that line on stdin belongs to the bot.
+ *
+ * Runs in its own JVM with only this class on the classpath, so it must use nothing but the JDK.
+ */
+public final class WarmLauncher {
+
+    private WarmLauncher() {}
+
+    public static void main(String[] args) throws Exception {
+        warmUp();
+
+        String command = readLine(System.in);
+        if (command == null || command.isEmpty()) return; // pool shut down
+
+        String[] parts = command.split("\t", 2);
+        URL classpath = Path.of(parts[1]).toUri().toURL();
+
+        // Parented to the platform loader, so the bot cannot see this class
+        URLClassLoader loader = new URLClassLoader(new URL[]{classpath}, ClassLoader.getPlatformClassLoader());
+        Thread.currentThread().setContextClassLoader(loader);
+        Class<?> mainClass = Class.forName(parts[0], true, loader);
+        Method main = mainClass.getMethod("main", String[].class);
+
+        try {
+            main.invoke(null, (Object) new String[0]);
+        } catch (InvocationTargetException e) {
+            // Same report and exit code as an uncaught exception in a plain `java` launch
+            System.err.print("Exception in thread \"main\" ");
+            e.getCause().printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    /** Touches what most bots use first (console I/O, formatting, sleeping) while nobody is waiting. */
+    private static void warmUp() {
+        new java.util.Scanner("warm up\n").nextLine();
+        String.format("%d %s %.2f", 1, "a", 1.0);
+        new StringBuilder().append(1).append('a').toString();
+        try {
+            Thread.sleep(0);
+        } catch (InterruptedException ignored) {
+        }
+    }
+
+    /** Reads up to a newline byte by byte; anything buffered after it stays in System.in for the bot. */
+    private static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) != -1 && b != '\n') {
+            line.write(b);
+        }
+        if (b == -1 && line.size() == 0) return null;
+        return line.toString(StandardCharsets.UTF_8);
+    }
+}
@@ -1,19 +1,28 @@
 package com.botmaker.services;
 
-import com.botmaker.blocks.MainBlock;
 import com.botmaker.config.ApplicationConfig;
+import com.botmaker.core.BindingAwareBlock;
+import com.botmaker.core.BodyBlock;
 import com.botmaker.core.CodeBlock;
 import com.botmaker.events.CoreApplicationEvents;
 import com.botmaker.events.EventBus;
 import com.botmaker.lsp.CompletionContext;
 import com.botmaker.parser.AstRewriter;
+import com.botmaker.parser.BindingResolver;
 import com.botmaker.parser.BlockFactory;
 import com.botmaker.parser.CodeEditor;
+import com.botmaker.project.ProjectConfig;
 import com.botmaker.state.ApplicationState;
 import com.botmaker.state.HistoryManager;
 import com.botmaker.ui.BlockDragAndDropManager;
 import com.botmaker.validation.DiagnosticsManager;
 import javafx.application.Platform;
+import org.eclipse.jdt.core.dom.ASTNode;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class CodeEditorService {
 
@@ -21,6 +30,7 @@ public class CodeEditorService {
     private final ApplicationState state;
     private final EventBus eventBus;
     private final BlockFactory blockFactory;
+    private final BindingResolver bindingResolver;
     private final AstRewriter astRewriter;
     private final CodeEditor codeEditor;
     private final BlockDragAndDropManager dragAndDropManager;
@@ -29,11 +39,26 @@ public class CodeEditorService {
     private final HistoryManager historyManager;
     private boolean isRestoringHistory = false;
 
+    // Parsing and block construction run here; only the scene swap is posted to the FX thread
+    private final ExecutorService parseWorker = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "Block-Parser");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // Second phase: binding resolution, kept apart so it never delays the next structural parse
+    private final ExecutorService bindingWorker = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "Binding-Resolver");
+        t.setDaemon(true);
+        return t;
+    });
+
     public CodeEditorService(
             ApplicationConfig config,
             ApplicationState state,
             EventBus eventBus,
             BlockFactory blockFactory,
+            BindingResolver bindingResolver,
             AstRewriter astRewriter,
             BlockDragAndDropManager dragAndDropManager,
             LanguageServerService languageServerService,
@@ -43,12 +68,14 @@ public class CodeEditorService {
         this.state = state;
         this.eventBus = eventBus;
         this.blockFactory = blockFactory;
+        this.bindingResolver = bindingResolver;
         this.astRewriter = astRewriter;
         this.dragAndDropManager = dragAndDropManager;
         this.languageServerService = languageServerService;
         this.diagnosticsManager = diagnosticsManager;
         this.historyManager = new HistoryManager();
         this.codeEditor = new CodeEditor(state, eventBus, astRewriter, blockFactory);
+        this.state.setCollapsedBlockIds(ProjectConfig.getCollapsedBlocks(projectName()));
 
         setupEventHandlers();
     }
@@ -56,7 +83,7 @@ public class CodeEditorService {
     private void setupEventHandlers() {
         eventBus.subscribe(
                 CoreApplicationEvents.UIRefreshRequestedEvent.class,
-                event -> Platform.runLater(() -> refreshUI(event.getCode())),
+                event -> requestRefresh(event.getCode(), event.getDocVersion()),
                 false
         );
 
@@ -67,6 +94,13 @@ public class CodeEditorService {
                 false
         );
 
+        // Persisting writes the config file, so it runs on its own ordered lane
+        eventBus.subscribe(
+                CoreApplicationEvents.BlockCollapseToggledEvent.class,
+                this::handleCollapseToggle,
+                EventBus.DispatchMode.SERIAL
+        );
+
         // 1. Record History on Code Updates
         eventBus.subscribe(CoreApplicationEvents.CodeUpdatedEvent.class, this::handleCodeUpdateForHistory, false);
 
@@ -81,10 +115,10 @@ public class CodeEditorService {
         // If this update is triggered BY the undo button, don't record it again!
         if (isRestoringHistory) return;
 
-        // Save the PREVIOUS code state before the update happened
+        // Save the edit as deltas against the PREVIOUS code state
         String previousCode = event.getPreviousCode();
         if (previousCode != null && !previousCode.isEmpty()) {
-            historyManager.pushState(previousCode);
+            historyManager.record(previousCode, event.getDeltas());
             broadcastHistoryState();
         }
     }
@@ -99,12 +133,17 @@ public class CodeEditorService {
         applyHistoryState(historyManager.redo(state.getCurrentCode()));
     }
 
-    private void applyHistoryState(String code) {
+    private void applyHistoryState(HistoryManager.Change change) {
+        if (change == null) {
+            broadcastHistoryState();
+            return;
+        }
         isRestoringHistory = true; // Lock recording
         try {
             // This triggers the standard refresh flow (UI update, LSP sync, etc.)
             // We fake a CodeUpdatedEvent so the LanguageServerService picks it up
-            eventBus.publish(new CoreApplicationEvents.CodeUpdatedEvent(code, state.getCurrentCode()));
+            eventBus.publish(new CoreApplicationEvents.CodeUpdatedEvent(
+                    change.code(), state.getCurrentCode(), change.deltas(), state.getDocVersion()));
             broadcastHistoryState();
         } finally {
             isRestoringHistory = false; // Unlock
@@ -126,40 +165,124 @@ public class CodeEditorService {
         }
     }
 
+    private void handleCollapseToggle(CoreApplicationEvents.BlockCollapseToggledEvent event) {
+        if (state.setCollapsed(event.getBlock().getId(), event.isCollapsed())) {
+            ProjectConfig.saveCollapsedBlocks(projectName(), state.getCollapsedBlockIds());
+        }
+    }
+
+    private String projectName() {
+        return config.getProjectPath().getFileName().toString();
+    }
+
     public void loadInitialCode() {
         String currentCode = state.getCurrentCode();
         historyManager.clear();
+        blockFactory.resetReconciliation();
         broadcastHistoryState();
-        Platform.runLater(() -> refreshUI(currentCode));
+        requestRefresh(currentCode, state.getDocVersion());
     }
 
-    private void refreshUI(String javaCode) {
-        state.setCurrentCode(javaCode);
-        state.clearNodeToBlockMap();
+    /**
+     * Parses the code and builds the block model on the parse worker, then posts the
+     * result to the FX thread. Work for a document version that has already been
+     * superseded is skipped or discarded.
+     */
+    private void requestRefresh(String javaCode, long docVersion) {
+        // Read now, while the edit that asked for this refresh is still running on the FX thread
+        boolean markNewIdentifiers = blockFactory.takeMarkNewIdentifiersAsUnedited();
+        parseWorker.execute(() -> {
+            if (docVersion != state.getDocVersion()) return;
+            try {
+                RefreshResult result = buildRefresh(javaCode, docVersion, markNewIdentifiers);
+                Platform.runLater(() -> applyRefresh(result));
+                requestBindings(result);
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        });
+    }
 
-        if (diagnosticsManager != null) {
-            diagnosticsManager.updateSource(state.getMutableNodeToBlockMap(), javaCode);
+    /**
+     * Resolves type bindings for an already displayed block tree and hands them to the
+     * binding-aware blocks once ready.
+     */
+    private void requestBindings(RefreshResult result) {
+        bindingWorker.execute(() -> {
+            if (result.docVersion() != state.getDocVersion()) return;
+            try {
+                Map<BindingAwareBlock, ASTNode> resolved = bindingResolver.resolve(
+                        result.code(), result.conversion().getCompilationUnit(), result.nodeToBlockMap());
+                Platform.runLater(() -> {
+                    if (result.docVersion() != state.getDocVersion()) return;
+                    resolved.forEach(BindingAwareBlock::applyBindings);
+                });
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        });
+    }
+
+    private RefreshResult buildRefresh(String javaCode, long docVersion, boolean markNewIdentifiers) {
+        Map<ASTNode, CodeBlock> nodeToBlockMap = new HashMap<>();
+        BlockFactory.Conversion conversion = blockFactory.convert(javaCode, markNewIdentifiers, nodeToBlockMap, dragAndDropManager);
+        DiagnosticsManager.SourceSnapshot diagnosticsSource = diagnosticsManager != null
+                ? diagnosticsManager.prepareSource(nodeToBlockMap, javaCode)
+                : null;
+        Map<String, CodeBlock> blocksById = new HashMap<>(nodeToBlockMap.size() * 2);
+        for (CodeBlock block : nodeToBlockMap.values()) {
+            blocksById.put(block.getId(), block);
+        }
+        return new RefreshResult(javaCode, docVersion, conversion, nodeToBlockMap, blocksById, diagnosticsSource);
+    }
+
+    private void applyRefresh(RefreshResult result) {
+        if (result.docVersion() != state.getDocVersion()) return;
+        // Reused blocks are still on screen until here; only now do they move to the new AST
+        if (!blockFactory.commit(result.conversion())) {
+            // Built against a tree that has since been replaced; the refresh queued with it wins
+            return;
         }
 
-        MainBlock rootBlock = blockFactory.convert(
-                javaCode,
-                state.getMutableNodeToBlockMap(),
-                dragAndDropManager
-        );
+        state.setCurrentCode(result.code());
+        state.clearNodeToBlockMap();
+        state.getMutableNodeToBlockMap().putAll(result.nodeToBlockMap());
+        state.setBlocksById(result.blocksById());
+
+        if (result.diagnosticsSource() != null) {
+            diagnosticsManager.applySource(result.diagnosticsSource());
+        }
 
         // NEW: Restore breakpoints on newly created blocks
-        for (CodeBlock block : state.getNodeToBlockMap().values()) {
-            if (state.hasBreakpoint(block.getId())) {
-                block.setBreakpoint(true);
-            }
+        for (String breakpointId : state.getBreakpointIds()) {
+            state.getBlockById(breakpointId).ifPresent(block -> block.setBreakpoint(true));
         }
 
-        state.setCompilationUnit(blockFactory.getCompilationUnit());
+        // Fold bodies before the canvas builds them, so their statements are never turned into nodes
+        for (String collapsedId : state.getCollapsedBlockIds()) {
+            state.getBlockById(collapsedId).ifPresent(block -> {
+                if (block instanceof BodyBlock body) body.setCollapsed(true);
+            });
+        }
 
-        eventBus.publish(new CoreApplicationEvents.UIBlocksUpdatedEvent(rootBlock));
+        state.setCompilationUnit(result.conversion().getCompilationUnit(), result.docVersion(), result.code());
+
+        eventBus.publish(new CoreApplicationEvents.UIBlocksUpdatedEvent(result.conversion().getRootBlock()));
         eventBus.publish(new CoreApplicationEvents.StatusMessageEvent("UI Refreshed."));
+
+        // Edits made while this tree was being built were queued against the previous one
+        codeEditor.replayPendingEdits();
     }
 
+    private record RefreshResult(
+            String code,
+            long docVersion,
+            BlockFactory.Conversion conversion,
+            Map<ASTNode, CodeBlock> nodeToBlockMap,
+            Map<String, CodeBlock> blocksById,
+            DiagnosticsManager.SourceSnapshot diagnosticsSource
+    ) {}
+
     public CompletionContext createCompletionContext() {
         return new CompletionContext(
                 codeEditor,
@@ -167,10 +290,12 @@ public class CodeEditorService {
                 state.getDocUri(),
                 state.getCurrentCode(),
                 state.getDocVersion(),
-                dragAndDropManager
+                dragAndDropManager,
+                languageServerService::flushDocument
         );
     }
 
+    public Map<ASTNode, CodeBlock> getNodeToBlockMap() { return state.getNodeToBlockMap(); }
     public CodeEditor getCodeEditor() { return codeEditor; }
     public BlockFactory getBlockFactory() { return blockFactory; }
 }
\ No newline at end of file
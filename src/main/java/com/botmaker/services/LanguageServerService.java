@@ -4,15 +4,16 @@ import com.botmaker.config.ApplicationConfig;
 import com.botmaker.config.Constants;
 import com.botmaker.events.CoreApplicationEvents;
 import com.botmaker.events.EventBus;
+import com.botmaker.lsp.DiagnosticsLatencyTracker;
+import com.botmaker.lsp.DocumentSyncActor;
 import com.botmaker.lsp.JdtLanguageServerLauncher;
 import com.botmaker.state.ApplicationState;
-import javafx.application.Platform;
 import org.eclipse.lsp4j.*;
 import org.eclipse.lsp4j.services.LanguageServer;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public class LanguageServerService {
 
@@ -23,6 +24,8 @@ public class LanguageServerService {
 
     private LanguageServer server;
     private JdtLanguageServerLauncher launcher;
+    private DocumentSyncActor documentSync;
+    private final DiagnosticsLatencyTracker latencyTracker;
 
     // New flag
     private boolean shouldClearCache = false;
@@ -33,6 +36,7 @@ public class LanguageServerService {
             EventBus eventBus,
             com.botmaker.validation.DiagnosticsManager diagnosticsManager) {
         this.config = config;
+        this.latencyTracker = new DiagnosticsLatencyTracker(config.isEnableEventLogging());
         this.state = state;
         this.eventBus = eventBus;
         this.diagnosticsManager = diagnosticsManager;
@@ -63,15 +67,21 @@ public class LanguageServerService {
                 config.getProjectPath(),
                 config.getWorkspaceDataPath(),
                 (PublishDiagnosticsParams params) -> {
-                    Platform.runLater(() -> {
-                        List<Diagnostic> diagnostics = params.getDiagnostics();
-                        eventBus.publish(new CoreApplicationEvents.DiagnosticsUpdatedEvent(diagnostics));
-                    });
+                    if (params.getUri() != null && params.getUri().equals(state.getDocUri())) {
+                        latencyTracker.diagnosticsReceived();
+                    }
+                    // The UI applies only the latest set per frame, so publish straight from the LSP thread
+                    eventBus.publish(new CoreApplicationEvents.DiagnosticsUpdatedEvent(params.getDiagnostics()));
                 }
         );
 
         // ... rest of the file stays the same ...
         server = launcher.getServer();
+        boolean incrementalSync = Constants.LSP_INCREMENTAL_SYNC
+                && launcher.getTextDocumentSyncKind() == TextDocumentSyncKind.Incremental;
+        if (config.isEnableEventLogging()) {
+            System.out.println("Document sync mode: " + (incrementalSync ? "incremental" : "full"));
+        }
 
         Path docPath = config.getSourceFilePath().toAbsolutePath().normalize();
 
@@ -107,36 +117,42 @@ public class LanguageServerService {
         server.getTextDocumentService().didOpen(new DidOpenTextDocumentParams(
                 new TextDocumentItem(docUri, "java", (int) state.getDocVersion(), currentCode)
         ));
+
+        documentSync = new DocumentSyncActor(
+                server, docUri, docPath, config.getDocumentSyncWindowMs(), incrementalSync, latencyTracker,
+                message -> eventBus.publish(new CoreApplicationEvents.StatusMessageEvent(message))
+        );
     }
 
     // ... shutdown/handlers stay same ...
     private void handleCodeUpdate(CoreApplicationEvents.CodeUpdatedEvent event) {
-        try {
-            // Write to file
-            Path docPath = Path.of(new java.net.URI(state.getDocUri()));
-            Files.writeString(docPath, event.getNewCode());
-
-            // Update state
-            state.incrementDocVersion();
-            state.setCurrentCode(event.getNewCode());
-
-            // Notify LSP server
-            server.getTextDocumentService().didChange(new DidChangeTextDocumentParams(
-                    new VersionedTextDocumentIdentifier(state.getDocUri(), (int) state.getDocVersion()),
-                    List.of(new TextDocumentContentChangeEvent(event.getNewCode()))
-            ));
-
-            eventBus.publish(new CoreApplicationEvents.UIRefreshRequestedEvent(event.getNewCode()));
-
-        } catch (Exception e) {
-            e.printStackTrace();
-            eventBus.publish(new CoreApplicationEvents.StatusMessageEvent(
-                    "Error saving file: " + e.getMessage()
-            ));
+        // State moves on immediately; disk and server catch up on the sync worker
+        state.incrementDocVersion();
+        state.setCurrentCode(event.getNewCode());
+
+        if (documentSync != null) { // not started until initialize()
+            documentSync.submit(event.getPreviousCode(), event.getNewCode(), event.getDeltas(), state.getDocVersion());
         }
+
+        eventBus.publish(new CoreApplicationEvents.UIRefreshRequestedEvent(
+                event.getNewCode(), state.getDocVersion(), event.getDeltas()));
+    }
+
+    /**
+     * Sends pending edits to the server now instead of at the end of the sync window.
+     * @return Completes once the server has been notified and the file written
+     */
+    public CompletableFuture<Void> flushDocument() {
+        return documentSync != null ? documentSync.flushNow() : CompletableFuture.completedFuture(null);
     }
 
     public void shutdown() {
+        if (documentSync != null) {
+            documentSync.shutdown(Constants.SHORT_SLEEP_MS);
+        }
+        if (config.isEnableEventLogging()) {
+            System.out.println(latencyTracker.report());
+        }
         if (launcher != null) {
             try {
                 System.out.println("Requesting server shutdown...");
@@ -16,11 +16,14 @@ public class ApplicationState {
     // Code-related state
     private String currentCode;
     private String docUri;
-    private long docVersion;
+    private volatile long docVersion; // read by the background parse worker
 
     // AST and block mappings
     private CompilationUnit compilationUnit;
+    private long compilationUnitVersion; // document version the compilation unit was parsed from
+    private String compilationUnitSource;
     private Map<ASTNode, CodeBlock> nodeToBlockMap;
+    private Map<String, CodeBlock> blocksById = new HashMap<>();
 
     // UI state
     private CodeBlock highlightedBlock;
@@ -28,6 +31,9 @@ public class ApplicationState {
     // Debug state
     private boolean isDebugging;
     private final Set<String> breakpointIds = new HashSet<>();
+
+    // Folded block bodies, by stable block ID; updated off the FX thread when toggles are persisted
+    private final Set<String> collapsedBlockIds = java.util.concurrent.ConcurrentHashMap.newKeySet();
     public ApplicationState() {
         this.currentCode = "";
         this.docUri = "";
@@ -72,8 +78,24 @@ public class ApplicationState {
         return Optional.ofNullable(compilationUnit);
     }
 
-    public void setCompilationUnit(CompilationUnit compilationUnit) {
+    public void setCompilationUnit(CompilationUnit compilationUnit, long docVersion, String source) {
         this.compilationUnit = compilationUnit;
+        this.compilationUnitVersion = docVersion;
+        this.compilationUnitSource = source;
+    }
+
+    /** The text the compilation unit was parsed from; its node offsets refer to this text. */
+    public String getCompilationUnitSource() {
+        return compilationUnitSource;
+    }
+
+    /**
+     * True if the compilation unit was parsed from the current code. The code moves on as soon as
+     * an edit is made, the compilation unit only once the refresh for it is installed; in between,
+     * offsets from the old tree don't match the new text.
+     */
+    public boolean isCompilationUnitCurrent() {
+        return compilationUnit != null && compilationUnitVersion == docVersion;
     }
 
     /**
@@ -103,6 +125,17 @@ public class ApplicationState {
         return Optional.ofNullable(nodeToBlockMap.get(node));
     }
 
+    /**
+     * Replaces the block ID index, built alongside the node-to-block map of each parse.
+     */
+    public void setBlocksById(Map<String, CodeBlock> blocksById) {
+        this.blocksById = blocksById != null ? blocksById : new HashMap<>();
+    }
+
+    public Optional<CodeBlock> getBlockById(String blockId) {
+        return blockId == null ? Optional.empty() : Optional.ofNullable(blocksById.get(blockId));
+    }
+
     // UI state
 
     public Optional<CodeBlock> getHighlightedBlock() {
@@ -152,6 +185,21 @@ public class ApplicationState {
     public boolean hasBreakpoint(String blockId) {
         return breakpointIds.contains(blockId);
     }
+
+    // Collapse state
+
+    public Set<String> getCollapsedBlockIds() {
+        return Collections.unmodifiableSet(collapsedBlockIds);
+    }
+
+    public void setCollapsedBlockIds(Collection<String> blockIds) {
+        collapsedBlockIds.clear();
+        collapsedBlockIds.addAll(blockIds);
+    }
+
+    public boolean setCollapsed(String blockId, boolean collapsed) {
+        return collapsed ? collapsedBlockIds.add(blockId) : collapsedBlockIds.remove(blockId);
+    }
     // Utility methods
 
     /**
@@ -1,59 +1,195 @@
 package com.botmaker.state;
 
-import java.util.Stack;
+import com.botmaker.config.Constants;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Undo/redo history stored as text deltas instead of full copies of the file.
+ * Each entry holds the forward and reverse deltas of one edit; push, undo and redo are
+ * constant-time deque operations (plus applying the deltas to the text), and the history
+ * is bounded by an approximate byte budget rather than an entry count.
+ */
 public class HistoryManager {
 
-    private final Stack<String> undoStack = new Stack<>();
-    private final Stack<String> redoStack = new Stack<>();
-    private static final int MAX_HISTORY_SIZE = 50; // Limit memory usage
+    private static final int ENTRY_OVERHEAD_BYTES = 64;
+    private static final int DELTA_OVERHEAD_BYTES = 32;
 
-    /**
-     * Saves a snapshot of the code.
-     * Call this BEFORE applying a new change.
-     */
-    public void pushState(String code) {
-        // Avoid saving duplicates (e.g. if multiple events fire for same code)
-        if (!undoStack.isEmpty() && undoStack.peek().equals(code)) {
-            return;
+    /** Result of an undo or redo: the restored code and the deltas that lead to it. */
+    public record Change(String code, List<TextDelta> deltas) {}
+
+    private static final class Entry {
+        List<TextDelta> forward;  // previous -> next
+        List<TextDelta> reverse;  // next -> previous
+        long timestamp;
+        long bytes;
+
+        Entry(List<TextDelta> forward, List<TextDelta> reverse, long timestamp) {
+            this.forward = forward;
+            this.reverse = reverse;
+            this.timestamp = timestamp;
+            this.bytes = estimateBytes(forward) + estimateBytes(reverse) + ENTRY_OVERHEAD_BYTES;
         }
+    }
+
+    private final Deque<Entry> undoStack = new ArrayDeque<>();
+    private final Deque<Entry> redoStack = new ArrayDeque<>();
+    private final long maxBytes;
+    private final long mergeWindowMs;
+    private long totalBytes = 0;
 
-        undoStack.push(code);
+    public HistoryManager() {
+        this(Constants.HISTORY_MAX_BYTES, Constants.HISTORY_MERGE_WINDOW_MS);
+    }
+
+    public HistoryManager(long maxBytes, long mergeWindowMs) {
+        this.maxBytes = maxBytes;
+        this.mergeWindowMs = mergeWindowMs;
+    }
 
-        // Enforce size limit
-        if (undoStack.size() > MAX_HISTORY_SIZE) {
-            undoStack.remove(0);
+    /**
+     * Records an edit.
+     * @param before The code the deltas apply to
+     * @param deltas Sequential deltas turning {@code before} into the new code
+     */
+    public void record(String before, List<TextDelta> deltas) {
+        if (deltas.isEmpty()) return;
+
+        // Reverse deltas undo the forward ones last-to-first, each against the text it produced
+        List<TextDelta> reverse = new ArrayList<>(deltas.size());
+        StringBuilder text = new StringBuilder(before);
+        for (TextDelta delta : deltas) {
+            if (delta.offset() < 0 || delta.offset() + delta.length() > text.length()) {
+                // Entries recorded so far no longer lead to the document, and this edit can't be undone
+                System.err.println("History out of sync with the document, clearing it");
+                clear();
+                return;
+            }
+            reverse.addFirst(new TextDelta(delta.offset(), delta.replacement().length(),
+                    text.substring(delta.offset(), delta.offset() + delta.length())));
+            text.replace(delta.offset(), delta.offset() + delta.length(), delta.replacement());
         }
 
         // New change clears the redo future
+        for (Entry entry : redoStack) totalBytes -= entry.bytes;
         redoStack.clear();
+
+        long now = System.currentTimeMillis();
+        if (!tryMerge(deltas, reverse, now)) {
+            Entry entry = new Entry(List.copyOf(deltas), List.copyOf(reverse), now);
+            undoStack.push(entry);
+            totalBytes += entry.bytes;
+        }
+        enforceBudget();
     }
 
-    public boolean canUndo() { return !undoStack.isEmpty(); }
-    public boolean canRedo() { return !redoStack.isEmpty(); }
+    /**
+     * Folds a single-line edit into the previous entry when it lands inside the text that entry
+     * inserted shortly before, e.g. successive keystrokes in the same literal.
+     */
+    private boolean tryMerge(List<TextDelta> deltas, List<TextDelta> reverse, long now) {
+        Entry last = undoStack.peek();
+        if (last == null || deltas.size() != 1 || last.forward.size() != 1) return false;
+        if (mergeWindowMs <= 0 || now - last.timestamp > mergeWindowMs) return false;
 
-    public String undo(String currentCode) {
-        if (!canUndo()) return currentCode;
+        TextDelta previous = last.forward.getFirst();
+        TextDelta next = deltas.getFirst();
+        int regionStart = previous.offset();
+        int regionEnd = regionStart + previous.replacement().length();
+        if (next.offset() < regionStart || next.offset() + next.length() > regionEnd) return false;
+        if (isMultiLine(previous.replacement()) || isMultiLine(next.replacement())) return false;
 
-        // Save current state to Redo stack
-        redoStack.push(currentCode);
+        int local = next.offset() - regionStart;
+        String merged = previous.replacement().substring(0, local)
+                + next.replacement()
+                + previous.replacement().substring(local + next.length());
+        String original = last.reverse.getFirst().replacement();
 
-        // Return previous state
-        return undoStack.pop();
+        totalBytes -= last.bytes;
+        Entry entry = new Entry(
+                List.of(new TextDelta(regionStart, previous.length(), merged)),
+                List.of(new TextDelta(regionStart, merged.length(), original)),
+                now);
+        undoStack.pop();
+        undoStack.push(entry);
+        totalBytes += entry.bytes;
+        return true;
     }
 
-    public String redo(String currentCode) {
-        if (!canRedo()) return currentCode;
+    /** Drops the oldest undo entries first, then the farthest redo entries. Always keeps the newest entry. */
+    private void enforceBudget() {
+        while (totalBytes > maxBytes && undoStack.size() + redoStack.size() > 1) {
+            Entry evicted = undoStack.size() > 1 || redoStack.isEmpty() ? undoStack.pollLast() : redoStack.pollLast();
+            totalBytes -= evicted.bytes;
+        }
+    }
 
-        // Save current state to Undo stack
-        undoStack.push(currentCode);
+    public boolean canUndo() { return !undoStack.isEmpty(); }
+    public boolean canRedo() { return !redoStack.isEmpty(); }
 
-        // Return future state
-        return redoStack.pop();
+    /** @return The previous code, or null if there is nothing to undo or the history no longer matches */
+    public Change undo(String currentCode) {
+        Entry entry = undoStack.poll();
+        if (entry == null) return null;
+        String code = applyOrNull(currentCode, entry.reverse);
+        if (code == null) {
+            totalBytes -= entry.bytes;
+            clear();
+            return null;
+        }
+        redoStack.push(entry);
+        return new Change(code, entry.reverse);
+    }
+
+    /** @return The next code, or null if there is nothing to redo or the history no longer matches */
+    public Change redo(String currentCode) {
+        Entry entry = redoStack.poll();
+        if (entry == null) return null;
+        String code = applyOrNull(currentCode, entry.forward);
+        if (code == null) {
+            totalBytes -= entry.bytes;
+            clear();
+            return null;
+        }
+        undoStack.push(entry);
+        return new Change(code, entry.forward);
     }
 
     public void clear() {
         undoStack.clear();
         redoStack.clear();
+        totalBytes = 0;
+    }
+
+    /** Approximate memory held by the history. */
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    private static String applyOrNull(String code, List<TextDelta> deltas) {
+        int length = code.length();
+        for (TextDelta delta : deltas) {
+            if (delta.offset() < 0 || delta.offset() + delta.length() > length) {
+                System.err.println("History out of sync with the document, clearing it");
+                return null;
+            }
+            length += delta.sizeChange();
+        }
+        return TextDelta.applyAll(code, deltas);
+    }
+
+    private static boolean isMultiLine(String text) {
+        return text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0;
+    }
+
+    private static long estimateBytes(List<TextDelta> deltas) {
+        long bytes = 0;
+        for (TextDelta delta : deltas) {
+            bytes += DELTA_OVERHEAD_BYTES + 2L * delta.replacement().length();
+        }
+        return bytes;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,52 @@
+package com.botmaker.state;
+
+import java.util.List;
+
+/**
+ * A single text replacement: {@code length} characters at {@code offset} become {@code replacement}.
+ * Lists of deltas are sequential: each offset refers to the text after the previous deltas.
+ */
+public record TextDelta(int offset, int length, String replacement) {
+
+    public String applyTo(String text) {
+        return text.substring(0, offset) + replacement + text.substring(offset + length);
+    }
+
+    /** The delta that turns the result of this one back into {@code before}. */
+    public TextDelta inverse(String before) {
+        return new TextDelta(offset, replacement.length(), before.substring(offset, offset + length));
+    }
+
+    /** Change in document length caused by this delta. */
+    public int sizeChange() {
+        return replacement.length() - length;
+    }
+
+    public static String applyAll(String text, List<TextDelta> deltas) {
+        if (deltas.size() == 1) return deltas.getFirst().applyTo(text);
+        StringBuilder sb = new StringBuilder(text);
+        for (TextDelta delta : deltas) {
+            sb.replace(delta.offset, delta.offset + delta.length, delta.replacement);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Smallest single delta turning {@code before} into {@code after}, found by trimming the
+     * common prefix and suffix. Used when an update does not come with its own deltas.
+     */
+    public static TextDelta between(String before, String after) {
+        int prefix = 0;
+        int max = Math.min(before.length(), after.length());
+        while (prefix < max && before.charAt(prefix) == after.charAt(prefix)) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < max - prefix
+                && before.charAt(before.length() - 1 - suffix) == after.charAt(after.length() - 1 - suffix)) {
+            suffix++;
+        }
+        return new TextDelta(prefix, before.length() - prefix - suffix,
+                after.substring(prefix, after.length() - suffix));
+    }
+}
@@ -0,0 +1,88 @@
+package com.botmaker.ui;
+
+import com.botmaker.core.CodeBlock;
+import javafx.css.PseudoClass;
+import javafx.scene.Node;
+import javafx.scene.control.ContextMenu;
+import javafx.scene.control.MenuItem;
+import javafx.scene.control.Tooltip;
+import javafx.scene.input.ContextMenuEvent;
+
+/**
+ * Decorations shared by every block on the canvas. Instead of each block building its own
+ * context menu and hint tooltip, one instance of each is created on first use and pointed at
+ * whichever block asked for it. Breakpoint state is a pseudo-class, so blocks without a
+ * breakpoint carry nothing extra.
+ */
+public final class BlockDecorations {
+
+    public static final PseudoClass BREAKPOINT_PSEUDO_CLASS = PseudoClass.getPseudoClass("breakpoint");
+
+    private static final String BLOCK_KEY = "botmaker.block";
+
+    private static ContextMenu contextMenu;
+    private static MenuItem toggleBreakpointItem;
+    private static CodeBlock menuTarget;
+    private static Tooltip hintTooltip;
+
+    private BlockDecorations() {}
+
+    /** Ties a freshly built block node to its block and gives it the shared hint tooltip. */
+    public static void attach(Node node, CodeBlock block) {
+        node.getProperties().put(BLOCK_KEY, block);
+        Tooltip.install(node, hintTooltip());
+    }
+
+    /** Restores the hint tooltip after a block-specific one (e.g. an error) is removed. */
+    public static void restoreHint(Node node) {
+        Tooltip.install(node, hintTooltip());
+    }
+
+    public static void setBreakpoint(Node node, boolean enabled) {
+        node.pseudoClassStateChanged(BREAKPOINT_PSEUDO_CLASS, enabled);
+    }
+
+    /**
+     * Opens the shared breakpoint menu for the innermost block under the pointer. One handler
+     * on the canvas replaces a handler and a menu per block.
+     */
+    public static void installContextMenu(Node canvas) {
+        canvas.addEventHandler(ContextMenuEvent.CONTEXT_MENU_REQUESTED, e -> {
+            CodeBlock block = findBlock(e.getPickResult().getIntersectedNode());
+            if (block == null || block.getUINode() == null) return;
+
+            ContextMenu menu = contextMenu();
+            menuTarget = block;
+            toggleBreakpointItem.setText(block.isBreakpoint() ? "Remove Breakpoint 🔴" : "Add Breakpoint ⚪");
+            menu.show(block.getUINode(), e.getScreenX(), e.getScreenY());
+            e.consume();
+        });
+    }
+
+    private static CodeBlock findBlock(Node node) {
+        while (node != null) {
+            if (node.getProperties().get(BLOCK_KEY) instanceof CodeBlock block) return block;
+            node = node.getParent();
+        }
+        return null;
+    }
+
+    private static ContextMenu contextMenu() {
+        if (contextMenu == null) {
+            contextMenu = new ContextMenu();
+            toggleBreakpointItem = new MenuItem("Toggle Breakpoint");
+            toggleBreakpointItem.setOnAction(ev -> {
+                if (menuTarget != null) menuTarget.toggleBreakpoint();
+            });
+            contextMenu.getItems().add(toggleBreakpointItem);
+        }
+        return contextMenu;
+    }
+
+    private static Tooltip hintTooltip() {
+        if (hintTooltip == null) {
+            hintTooltip = new Tooltip("Right-click to toggle breakpoint");
+        }
+        return hintTooltip;
+    }
+}
@@ -2,11 +2,17 @@ package com.botmaker.ui;
 
 import com.botmaker.core.BodyBlock;
 import com.botmaker.core.StatementBlock;
+import javafx.css.PseudoClass;
+import javafx.geometry.Bounds;
+import javafx.geometry.Point2D;
 import javafx.scene.Node;
 import javafx.scene.input.ClipboardContent;
 import javafx.scene.input.DataFormat;
+import javafx.scene.input.DragEvent;
 import javafx.scene.input.Dragboard;
+import javafx.scene.input.PickResult;
 import javafx.scene.input.TransferMode;
+import javafx.scene.layout.Pane;
 import javafx.scene.layout.Region;
 
 import java.util.function.Consumer;
@@ -20,6 +26,17 @@ public class BlockDragAndDropManager {
     private Consumer<DropInfo> onDrop;
     private Consumer<MoveBlockInfo> onBlockMove;
 
+    // Node properties read when hit-testing drops
+    private static final String DROP_BODY_KEY = "botmaker.dropBody";
+    private static final String DROP_STATEMENT_KEY = "botmaker.dropStatement";
+    private static final PseudoClass MOVE_PSEUDO_CLASS = PseudoClass.getPseudoClass("move");
+    private static final double INDICATOR_HEIGHT = 4;
+
+    // The one insertion indicator shared by every body
+    private final Region dropIndicator = new Region();
+    private Pane overlay;
+    private Node hoveredEmptyBody;
+
     public BlockDragAndDropManager(Consumer<DropInfo> onDrop) {
         this.onDrop = onDrop;
     }
@@ -55,6 +72,7 @@ public class BlockDragAndDropManager {
      * @param sourceBody The BodyBlock containing this block.
      */
     public void makeBlockMovable(Node node, StatementBlock block, BodyBlock sourceBody) {
+        registerDropStatement(node, block);
         node.setOnDragDetected(event -> {
             // Only start drag if not clicking on interactive elements
             if (event.getTarget() instanceof javafx.scene.control.Control) {
@@ -81,24 +99,24 @@ public class BlockDragAndDropManager {
 
             // Multiple approaches to ensure drag is fully released
             javafx.application.Platform.runLater(() -> {
-                // 1. Find and focus ScrollPane
+                // 1. Find and focus the scrolling container (canvas list or ScrollPane)
                 javafx.scene.Node current = node;
-                javafx.scene.control.ScrollPane scrollPane = null;
+                javafx.scene.control.Control scroller = null;
                 while (current != null) {
-                    if (current instanceof javafx.scene.control.ScrollPane) {
-                        scrollPane = (javafx.scene.control.ScrollPane) current;
+                    if (current instanceof javafx.scene.control.ScrollPane || current instanceof javafx.scene.control.ListView) {
+                        scroller = (javafx.scene.control.Control) current;
                         break;
                     }
                     current = current.getParent();
                 }
 
-                if (scrollPane != null) {
-                    // Make sure ScrollPane can receive focus
-                    scrollPane.setFocusTraversable(true);
-                    scrollPane.requestFocus();
+                if (scroller != null) {
+                    // Make sure the container can receive focus
+                    scroller.setFocusTraversable(true);
+                    scroller.requestFocus();
 
                     // Also try to release any event filters
-                    final javafx.scene.control.ScrollPane sp = scrollPane;
+                    final javafx.scene.control.Control sp = scroller;
                     javafx.application.Platform.runLater(() -> {
                         sp.requestFocus();
                     });
@@ -108,58 +126,66 @@ public class BlockDragAndDropManager {
     }
 
     /**
-     * Creates a thin, transparent region to act as a separator and drop target.
+     * Marks {@code container} as the drop area of {@code body}: pointer positions inside it
+     * (and not inside a nested body) insert into this body. Pass null to clear it.
      */
-    public Region createSeparator() {
-        Region separator = new Region();
-        separator.setMinHeight(8);
-        separator.setStyle("-fx-background-color: transparent;");
-        return separator;
+    public void registerDropBody(Node container, BodyBlock body) {
+        if (body == null) {
+            container.getProperties().remove(DROP_BODY_KEY);
+        } else {
+            container.getProperties().put(DROP_BODY_KEY, body);
+        }
     }
 
     /**
-     * Adds all necessary drag-and-drop event handlers to a separator region.
-     * Handles both adding new blocks and moving existing blocks.
-     * @param separator The region to add handlers to.
-     * @param targetBody The body where blocks will be inserted.
-     * @param insertionIndex The index in the list where a drop should occur.
-     * @param adjacentBlock The block next to the separator, for context (can be null).
+     * Marks {@code node} as standing for {@code statement} when hit-testing drops. Pass null
+     * to clear it, e.g. when a reused list cell goes empty.
      */
-    public void addSeparatorDragHandlers(Region separator, BodyBlock targetBody, int insertionIndex, StatementBlock adjacentBlock) {
-        String defaultColor = "transparent";
-        String hoverColor = "#007bff"; // A distinct blue
-        String moveHoverColor = "#28a745"; // Green for moving blocks
+    public void registerDropStatement(Node node, StatementBlock statement) {
+        if (statement == null) {
+            node.getProperties().remove(DROP_STATEMENT_KEY);
+        } else {
+            node.getProperties().put(DROP_STATEMENT_KEY, statement);
+        }
+    }
 
-        separator.setOnDragEntered(event -> {
+    /**
+     * Installs the statement drop handling for everything inside {@code dropArea}. A single
+     * indicator placed in {@code overlay} marks the insertion point; the target body and index
+     * are worked out from the block under the pointer on each DRAG_OVER, so bodies and
+     * statements need no drop handlers of their own.
+     */
+    public void installDropTarget(Node dropArea, Pane overlay) {
+        dropIndicator.getStyleClass().add("drop-indicator");
+        dropIndicator.setManaged(false);
+        dropIndicator.setMouseTransparent(true);
+        dropIndicator.setVisible(false);
+        overlay.setMouseTransparent(true);
+        overlay.getChildren().add(dropIndicator);
+        this.overlay = overlay;
+
+        dropArea.addEventHandler(DragEvent.DRAG_OVER, event -> {
             Dragboard db = event.getDragboard();
-            if (db.hasContent(ADDABLE_BLOCK_FORMAT)) {
-                separator.setStyle("-fx-background-color: " + hoverColor + ";");
-                String logMessage = "Hovering insertion point at index: " + insertionIndex;
-                if (adjacentBlock != null) {
-                    logMessage += " (next to: " + adjacentBlock.getDetails() + ")";
-                }
-                System.out.println(logMessage);
-            } else if (db.hasContent(EXISTING_BLOCK_FORMAT)) {
-                separator.setStyle("-fx-background-color: " + moveHoverColor + ";");
-                System.out.println("Hovering to move block at index: " + insertionIndex);
+            boolean moving = db.hasContent(EXISTING_BLOCK_FORMAT);
+            if (!moving && !db.hasContent(ADDABLE_BLOCK_FORMAT)) return;
+
+            DropTarget target = findDropTarget(event);
+            if (target == null) {
+                hideDropIndicator();
+                return;
             }
+            event.acceptTransferModes(TransferMode.COPY_OR_MOVE);
+            showDropIndicator(target, moving);
             event.consume();
         });
 
-        separator.setOnDragExited(event -> {
-            separator.setStyle("-fx-background-color: " + defaultColor);
-            event.consume();
-        });
+        dropArea.addEventHandler(DragEvent.DRAG_EXITED, event -> hideDropIndicator());
 
-        separator.setOnDragOver(event -> {
-            Dragboard db = event.getDragboard();
-            if (db.hasContent(ADDABLE_BLOCK_FORMAT) || db.hasContent(EXISTING_BLOCK_FORMAT)) {
-                event.acceptTransferModes(TransferMode.COPY_OR_MOVE);
-            }
-            event.consume();
-        });
+        dropArea.addEventHandler(DragEvent.DRAG_DROPPED, event -> {
+            DropTarget target = findDropTarget(event);
+            hideDropIndicator();
+            if (target == null) return;
 
-        separator.setOnDragDropped(event -> {
             Dragboard db = event.getDragboard();
             boolean success = false;
 
@@ -169,7 +195,7 @@ public class BlockDragAndDropManager {
                 AddableBlock type = AddableBlock.valueOf(blockTypeName);
 
                 if (onDrop != null) {
-                    onDrop.accept(new DropInfo(type, targetBody, insertionIndex));
+                    onDrop.accept(new DropInfo(type, target.body(), target.index()));
                     success = true;
                 } else {
                     System.err.println("WARNING: onDrop callback not set yet!");
@@ -179,7 +205,7 @@ public class BlockDragAndDropManager {
                 String blockId = (String) db.getContent(EXISTING_BLOCK_FORMAT);
 
                 if (onBlockMove != null) {
-                    onBlockMove.accept(new MoveBlockInfo(blockId, targetBody, insertionIndex));
+                    onBlockMove.accept(new MoveBlockInfo(blockId, target.body(), target.index()));
                     success = true;
                 } else {
                     System.err.println("WARNING: onBlockMove callback not set yet!");
@@ -191,59 +217,112 @@ public class BlockDragAndDropManager {
         });
     }
 
-    public void addEmptyBodyDropHandlers(Region target, BodyBlock targetBody) {
-        target.setOnDragEntered(event -> {
-            if (event.getDragboard().hasContent(ADDABLE_BLOCK_FORMAT) ||
-                    event.getDragboard().hasContent(EXISTING_BLOCK_FORMAT)) {
-                target.getStyleClass().add("empty-body-drop-hover");
-                System.out.println("Added hover class to: " + target.getClass().getSimpleName());
-            }
-            event.consume();
-        });
-
-        target.setOnDragExited(event -> {
-            target.getStyleClass().remove("empty-body-drop-hover");
-            event.consume();
-        });
+    /** Where a drop at the current pointer position would insert. */
+    private record DropTarget(BodyBlock body, int index, Node container) {}
 
-        target.setOnDragOver(event -> {
-            Dragboard db = event.getDragboard();
-            if (db.hasContent(ADDABLE_BLOCK_FORMAT) || db.hasContent(EXISTING_BLOCK_FORMAT)) {
-                event.acceptTransferModes(TransferMode.COPY_OR_MOVE);
+    /**
+     * Walks up from the picked node to the innermost registered body. If the walk passed
+     * through one of that body's statements, the pointer is before or after it depending on
+     * which half it is in; otherwise (padding, empty space) the index comes from the
+     * statement bounds.
+     */
+    private DropTarget findDropTarget(DragEvent event) {
+        PickResult pick = event.getPickResult();
+        Node node = pick != null ? pick.getIntersectedNode() : null;
+        StatementBlock over = null;
+        Node overNode = null;
+
+        while (node != null) {
+            if (node.getProperties().get(DROP_BODY_KEY) instanceof BodyBlock body) {
+                if (over != null && over.getParentBody() == body) {
+                    Bounds bounds = overNode.localToScene(overNode.getBoundsInLocal());
+                    int index = over.getIndexInParent();
+                    if (event.getSceneY() > bounds.getCenterY()) index++;
+                    return new DropTarget(body, index, node);
+                }
+                return new DropTarget(body, insertionIndexAt(body, event.getSceneY()), node);
             }
-            event.consume();
-        });
+            if (node.getProperties().get(DROP_STATEMENT_KEY) instanceof StatementBlock statement) {
+                over = statement;
+                overNode = node;
+            }
+            node = node.getParent();
+        }
+        return null;
+    }
 
-        target.setOnDragDropped(event -> {
-            Dragboard db = event.getDragboard();
-            boolean success = false;
+    /**
+     * Binary search over the statements' on-screen bounds. Statements that are not in the scene
+     * only occur in the virtualized top-level list, where the pointer can only miss every row
+     * by being below the last one.
+     */
+    private int insertionIndexAt(BodyBlock body, double sceneY) {
+        int lo = 0;
+        int hi = body.getStatementCount();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            Bounds bounds = sceneBounds(body.getStatement(mid));
+            if (bounds == null) return body.getStatementCount();
+            if (sceneY > bounds.getCenterY()) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
 
-            if (db.hasContent(ADDABLE_BLOCK_FORMAT)) {
-                // Adding a new block
-                String blockTypeName = (String) db.getContent(ADDABLE_BLOCK_FORMAT);
-                AddableBlock type = AddableBlock.valueOf(blockTypeName);
+    private static Bounds sceneBounds(StatementBlock statement) {
+        Node node = statement.getUINode();
+        if (node == null || node.getScene() == null) return null;
+        return node.localToScene(node.getBoundsInLocal());
+    }
 
-                if (onDrop != null) {
-                    onDrop.accept(new DropInfo(type, targetBody, 0)); // Always index 0 for empty body
-                    success = true;
-                } else {
-                    System.err.println("WARNING: onDrop callback not set yet!");
-                }
-            } else if (db.hasContent(EXISTING_BLOCK_FORMAT)) {
-                // Moving an existing block
-                String blockId = (String) db.getContent(EXISTING_BLOCK_FORMAT);
+    private void showDropIndicator(DropTarget target, boolean moving) {
+        if (overlay == null) return;
+        BodyBlock body = target.body();
+        int count = body.getStatementCount();
+
+        if (count == 0) {
+            // Empty bodies highlight as a whole rather than showing a line
+            dropIndicator.setVisible(false);
+            setHoveredEmptyBody(target.container());
+            return;
+        }
+        setHoveredEmptyBody(null);
+
+        Bounds before = target.index() > 0 ? sceneBounds(body.getStatement(target.index() - 1)) : null;
+        Bounds after = target.index() < count ? sceneBounds(body.getStatement(target.index())) : null;
+        double y;
+        if (before != null && after != null) {
+            y = (before.getMaxY() + after.getMinY()) / 2;
+        } else if (after != null) {
+            y = after.getMinY() - INDICATOR_HEIGHT;
+        } else if (before != null) {
+            y = before.getMaxY() + INDICATOR_HEIGHT;
+        } else {
+            hideDropIndicator();
+            return;
+        }
+
+        Bounds area = target.container().localToScene(target.container().getBoundsInLocal());
+        Point2D topLeft = overlay.sceneToLocal(area.getMinX(), y - INDICATOR_HEIGHT / 2);
+        dropIndicator.resizeRelocate(topLeft.getX(), topLeft.getY(), area.getWidth(), INDICATOR_HEIGHT);
+        dropIndicator.pseudoClassStateChanged(MOVE_PSEUDO_CLASS, moving);
+        dropIndicator.setVisible(true);
+    }
 
-                if (onBlockMove != null) {
-                    onBlockMove.accept(new MoveBlockInfo(blockId, targetBody, 0));
-                    success = true;
-                } else {
-                    System.err.println("WARNING: onBlockMove callback not set yet!");
-                }
-            }
+    /** Hides the insertion indicator and any empty-body highlight. */
+    public void hideDropIndicator() {
+        dropIndicator.setVisible(false);
+        setHoveredEmptyBody(null);
+    }
 
-            event.setDropCompleted(success);
-            event.consume();
-        });
+    private void setHoveredEmptyBody(Node container) {
+        if (hoveredEmptyBody == container) return;
+        if (hoveredEmptyBody != null) hoveredEmptyBody.getStyleClass().remove("empty-body-drop-hover");
+        hoveredEmptyBody = container;
+        if (container != null) container.getStyleClass().add("empty-body-drop-hover");
     }
 
     public void addExpressionDropHandlers(Region target) {
@@ -253,6 +332,8 @@ public class BlockDragAndDropManager {
         target.setStyle(defaultStyle);
 
         target.setOnDragEntered(event -> {
+            // Slots handle their own drops, so the statement insertion point no longer applies
+            hideDropIndicator();
             if (event.getDragboard().hasContent(ADDABLE_BLOCK_FORMAT)) {
                 target.setStyle(hoverStyle);
                 System.out.println("Hovering expression slot.");
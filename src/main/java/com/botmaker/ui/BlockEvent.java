@@ -1,5 +1,6 @@
 package com.botmaker.ui;
 
+import com.botmaker.core.BodyBlock;
 import com.botmaker.core.CodeBlock;
 import javafx.event.Event;
 import javafx.event.EventType;
@@ -26,4 +27,20 @@ public class BlockEvent extends Event {
         public CodeBlock getBlock() { return block; }
         public boolean isEnabled() { return isEnabled; }
     }
+
+    public static class CollapseToggleEvent extends BlockEvent {
+        public static final EventType<CollapseToggleEvent> TOGGLE_COLLAPSE = new EventType<>(ANY, "TOGGLE_COLLAPSE");
+
+        private final BodyBlock body;
+        private final boolean isCollapsed;
+
+        public CollapseToggleEvent(BodyBlock body, boolean isCollapsed) {
+            super(TOGGLE_COLLAPSE);
+            this.body = body;
+            this.isCollapsed = isCollapsed;
+        }
+
+        public BodyBlock getBody() { return body; }
+        public boolean isCollapsed() { return isCollapsed; }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,342 @@
+package com.botmaker.ui;
+
+import com.botmaker.config.Constants;
+import com.botmaker.runtime.OutputSpool;
+import javafx.collections.ObservableListBase;
+import javafx.geometry.Insets;
+import javafx.scene.Node;
+import javafx.scene.control.*;
+import javafx.scene.input.Clipboard;
+import javafx.scene.input.ClipboardContent;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyCodeCombination;
+import javafx.scene.input.KeyCombination;
+import javafx.scene.input.KeyEvent;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.input.ScrollEvent;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.VBox;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Terminal tab. The output lives in the {@link OutputSpool}; the list shows it through a
+ * virtual item list whose items are just line numbers, so only the visible rows are decoded
+ * and turned into cells, and an append costs one change event per frame however many lines
+ * arrived. Filtering keeps a chunked array of matching line numbers instead of copying text.
+ */
+public class ConsoleView extends VBox {
+
+    private static final KeyCombination COPY = new KeyCodeCombination(KeyCode.C, KeyCombination.SHORTCUT_DOWN);
+
+    private final OutputSpool spool;
+    private final FrameScheduler frameScheduler;
+
+    private final LineList lines = new LineList();
+    private final ListView<Integer> listView = new ListView<>(lines);
+    // Cells the list has created (weakly, cells it discards can go), used to redraw a line that is still growing
+    private final Set<LineCell> cells = Collections.newSetFromMap(new WeakHashMap<>());
+
+    private final TextField searchField = new TextField();
+    private final ToggleButton filterToggle = new ToggleButton("Filter");
+    private final ToggleButton followToggle = new ToggleButton("Follow");
+    private final Label statusLabel = new Label();
+
+    // Active filter (lower-cased), the lines scanned for it so far and the ones that matched
+    private String filterNeedle;
+    private int filterScanned;
+    private IntChunks filterMatches;
+
+    private boolean openLineShown;
+    private int shownGeneration; // spool generation the rows belong to
+
+    public ConsoleView(OutputSpool spool, FrameScheduler frameScheduler) {
+        this.spool = spool;
+        this.frameScheduler = frameScheduler;
+
+        listView.getStyleClass().add("console-area");
+        listView.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
+        listView.setCellFactory(lv -> {
+            LineCell cell = new LineCell();
+            cells.add(cell);
+            return cell;
+        });
+        listView.setOnKeyPressed(e -> {
+            if (COPY.match(e)) {
+                copySelection();
+                e.consume();
+            } else if (e.getCode() == KeyCode.END) {
+                followToggle.setSelected(true);
+            }
+        });
+        // Scrolling back through the history stops the view from jumping to new output
+        listView.addEventFilter(ScrollEvent.SCROLL, e -> {
+            if (e.getDeltaY() > 0) followToggle.setSelected(false);
+        });
+        listView.addEventFilter(MouseEvent.MOUSE_PRESSED, e -> {
+            if (isOnScrollBar(e.getPickResult().getIntersectedNode())) followToggle.setSelected(false);
+        });
+        listView.addEventFilter(KeyEvent.KEY_PRESSED, e -> {
+            switch (e.getCode()) {
+                case UP, PAGE_UP, HOME -> followToggle.setSelected(false);
+                default -> { }
+            }
+        });
+        VBox.setVgrow(listView, Priority.ALWAYS);
+
+        searchField.setPromptText("Search output");
+        searchField.setOnKeyPressed(e -> {
+            if (e.getCode() == KeyCode.ENTER) search(!e.isShiftDown());
+            else if (e.getCode() == KeyCode.ESCAPE) searchField.clear();
+        });
+        searchField.textProperty().addListener((obs, old, text) -> {
+            if (filterToggle.isSelected()) applyFilter();
+        });
+        HBox.setHgrow(searchField, Priority.ALWAYS);
+
+        Button previousButton = new Button("▲");
+        previousButton.setOnAction(e -> search(false));
+        Button nextButton = new Button("▼");
+        nextButton.setOnAction(e -> search(true));
+
+        filterToggle.setOnAction(e -> applyFilter());
+        followToggle.setSelected(true);
+        followToggle.setOnAction(e -> scheduleRefresh());
+
+        HBox searchBar = new HBox(5, searchField, previousButton, nextButton, filterToggle, followToggle, statusLabel);
+        searchBar.setPadding(new Insets(3));
+        searchBar.getStyleClass().add("console-search-bar");
+
+        getChildren().addAll(searchBar, listView);
+
+        // Output arrives on reader threads; the list is brought up to date at most once per frame
+        spool.setOnChange(this::scheduleRefresh);
+    }
+
+    private boolean isOnScrollBar(Node node) {
+        for (Node n = node; n != null && n != listView; n = n.getParent()) {
+            if (n instanceof ScrollBar) return true;
+        }
+        return false;
+    }
+
+    private void scheduleRefresh() {
+        frameScheduler.postLatest("console", this::refresh);
+    }
+
+    private void refresh() {
+        int generation = spool.generation();
+        if (generation != shownGeneration) {
+            // Output was cleared (and maybe refilled): every row may now show another line
+            shownGeneration = generation;
+            openLineShown = false;
+            resetFilter();
+        }
+        int count = spool.lineCount();
+        boolean scanning = false;
+        if (filterNeedle == null) {
+            lines.resize(count);
+        } else {
+            // A still-open last line is only tested once it is complete
+            int scanTo = spool.hasOpenLine() ? count - 1 : count;
+            int end = Math.min(scanTo, filterScanned + Constants.CONSOLE_FILTER_LINES_PER_FRAME);
+            for (int i = filterScanned; i < end; i++) {
+                if (spool.lineContains(i, filterNeedle)) filterMatches.add(i);
+            }
+            filterScanned = Math.max(filterScanned, end);
+            lines.resize(filterMatches.size());
+            scanning = filterScanned < scanTo;
+            if (scanning) scheduleRefresh(); // continue next frame
+        }
+
+        // The last line may have grown without the line count changing
+        if (openLineShown) redrawLine(count - 1);
+        openLineShown = spool.hasOpenLine();
+
+        if (followToggle.isSelected() && !lines.isEmpty()) {
+            listView.scrollTo(lines.size() - 1);
+        }
+        updateStatus(count, scanning);
+    }
+
+    private void redrawLine(int line) {
+        for (LineCell cell : cells) {
+            if (cell.getItem() != null && cell.getItem() == line) cell.showLine(line);
+        }
+    }
+
+    private void applyFilter() {
+        String text = searchField.getText();
+        filterNeedle = filterToggle.isSelected() && !text.isEmpty() ? text.toLowerCase() : null;
+        resetFilter();
+        refresh();
+    }
+
+    private void resetFilter() {
+        filterScanned = 0;
+        filterMatches = filterNeedle == null ? null : new IntChunks();
+        lines.reset(filterNeedle == null ? spool.lineCount() : 0, filterMatches);
+    }
+
+    /**
+     * Selects the next (or previous) line containing the search text. With the filter on every
+     * row matches, so this just steps through the rows; otherwise the spool is scanned off the
+     * FX thread.
+     */
+    private void search(boolean forward) {
+        String needle = searchField.getText();
+        if (needle.isEmpty() || lines.isEmpty()) return;
+        int selected = listView.getSelectionModel().getSelectedIndex();
+
+        if (filterNeedle != null) {
+            int row = selected < 0 ? (forward ? 0 : lines.size() - 1) : selected + (forward ? 1 : -1);
+            if (row >= 0 && row < lines.size()) selectRow(row);
+            return;
+        }
+
+        int start = selected < 0
+                ? (forward ? 0 : spool.lineCount() - 1)
+                : selected + (forward ? 1 : -1);
+        CompletableFuture.supplyAsync(() -> spool.find(needle, start, forward))
+                .thenAccept(line -> frameScheduler.post(() -> {
+                    if (!needle.equals(searchField.getText())) return; // query changed meanwhile
+                    if (line < 0 || line >= lines.size()) {
+                        statusLabel.setText("No more matches");
+                        return;
+                    }
+                    selectRow(line);
+                }));
+    }
+
+    private void selectRow(int row) {
+        followToggle.setSelected(false);
+        listView.getSelectionModel().clearAndSelect(row);
+        listView.scrollTo(Math.max(0, row - 3));
+        statusLabel.setText("Line " + (lines.get(row) + 1));
+    }
+
+    private void copySelection() {
+        List<Integer> rows = new ArrayList<>(listView.getSelectionModel().getSelectedIndices());
+        if (rows.isEmpty()) return;
+        rows.sort(null);
+        StringBuilder sb = new StringBuilder();
+        for (int row : rows) {
+            if (row >= lines.size()) continue;
+            sb.append(spool.readLine(lines.get(row), Integer.MAX_VALUE)).append('\n');
+        }
+        ClipboardContent content = new ClipboardContent();
+        content.putString(sb.toString());
+        Clipboard.getSystemClipboard().setContent(content);
+    }
+
+    private void updateStatus(int count, boolean scanning) {
+        if (filterNeedle != null) {
+            statusLabel.setText(String.format("%d of %d lines match%s", lines.size(), count, scanning ? " (scanning...)" : ""));
+        } else if (followToggle.isSelected()) {
+            statusLabel.setText(count == 0 ? "" : count + " lines");
+        }
+    }
+
+    /** One output line, decoded from the spool when the row becomes visible. */
+    private final class LineCell extends ListCell<Integer> {
+        @Override
+        protected void updateItem(Integer line, boolean empty) {
+            super.updateItem(line, empty);
+            if (empty || line == null) {
+                setText(null);
+            } else {
+                showLine(line);
+            }
+        }
+
+        void showLine(int line) {
+            setText(spool.readLine(line, Constants.CONSOLE_MAX_LINE_BYTES));
+        }
+    }
+
+    /**
+     * Items of the list: row i is line i, or the i-th matching line while filtering. Nothing
+     * per line is stored here, so growing to millions of rows costs no heap.
+     */
+    private static final class LineList extends ObservableListBase<Integer> {
+        private int size;
+        private IntChunks mapping;
+
+        @Override
+        public Integer get(int index) {
+            if (index < 0 || index >= size) throw new IndexOutOfBoundsException(index);
+            return mapping == null ? index : mapping.get(index);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        /** Grows (the normal case: new output) or shrinks the list with a single change. */
+        void resize(int newSize) {
+            if (newSize == size) return;
+            beginChange();
+            if (newSize > size) {
+                nextAdd(size, newSize);
+            } else {
+                nextRemove(newSize, removedRows(newSize, size - newSize));
+            }
+            size = newSize;
+            endChange();
+        }
+
+        /** Replaces every row, e.g. when the filter changes. */
+        void reset(int newSize, IntChunks newMapping) {
+            beginChange();
+            if (size > 0) nextRemove(0, removedRows(0, size));
+            mapping = newMapping;
+            size = newSize;
+            if (newSize > 0) nextAdd(0, newSize);
+            endChange();
+        }
+
+        // Stand-in for the removed items; listeners only need the count
+        private static List<Integer> removedRows(int from, int count) {
+            return new AbstractList<>() {
+                @Override
+                public Integer get(int index) {
+                    return from + index;
+                }
+
+                @Override
+                public int size() {
+                    return count;
+                }
+            };
+        }
+    }
+
+    /** Append-only int list stored in fixed-size chunks, so growing never copies what is already there. */
+    private static final class IntChunks {
+        private static final int CHUNK = 8192;
+        private final List<int[]> chunks = new ArrayList<>();
+        private int size;
+
+        void add(int value) {
+            if (size % CHUNK == 0) chunks.add(new int[CHUNK]);
+            chunks.get(size / CHUNK)[size % CHUNK] = value;
+            size++;
+        }
+
+        int get(int index) {
+            return chunks.get(index / CHUNK)[index % CHUNK];
+        }
+
+        int size() {
+            return size;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.botmaker.ui;
 
+import com.botmaker.config.Constants;
 import com.botmaker.events.ApplicationEvent;
 import com.botmaker.events.CoreApplicationEvents;
 import com.botmaker.events.EventBus;
@@ -40,8 +41,9 @@ public class EventLogManager {
         // Use a monospaced font style via CSS or inline for now
         this.eventListView.setStyle("-fx-font-family: 'Consolas', 'Monospaced'; -fx-font-size: 11px;");
 
-        // Subscribe to everything
-        eventBus.subscribeAll(this::handleEvent);
+        // Subscribe to everything; formatting runs on its own lane so publishers never wait on the log
+        eventBus.subscribeAll(this::handleEvent, EventBus.DispatchMode.SERIAL,
+                Constants.EVENT_BUS_QUEUE_CAPACITY, EventBus.Backpressure.DROP_OLDEST);
 
         // Start the UI update thread
         this.uiUpdater = Executors.newSingleThreadScheduledExecutor(r -> {
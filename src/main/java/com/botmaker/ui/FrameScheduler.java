@@ -0,0 +1,143 @@
+package com.botmaker.ui;
+
+import com.botmaker.config.Constants;
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Applies UI mutations once per frame instead of one Platform.runLater per update.
+ *
+ * Updates posted with a key replace any update still pending for that key, so a burst of
+ * status messages or output chunks costs one scene mutation per frame; the replaced ones are
+ * counted as coalesced. Unkeyed updates run in posting order. Each frame works through the
+ * queue for at most {@link Constants#UI_FRAME_BUDGET_MS} and leaves the rest for the next one,
+ * so input events get a turn under load. The timer only runs while there is work.
+ */
+public class FrameScheduler implements Executor {
+
+    private final Object lock = new Object();
+    // Pending updates in apply order; a keyed update is moved to the end when replaced
+    private final LinkedHashMap<Object, Runnable> pending = new LinkedHashMap<>();
+    private final AtomicBoolean armed = new AtomicBoolean(false);
+    private final boolean enableLogging;
+
+    private final AnimationTimer timer = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            if (!runFrame()) {
+                stop();
+                armed.set(false);
+                // Something may have been posted between the empty check and disarming
+                if (hasPending()) arm();
+            }
+        }
+    };
+
+    public FrameScheduler() {
+        this(false);
+    }
+
+    public FrameScheduler(boolean enableLogging) {
+        this.enableLogging = enableLogging;
+    }
+
+    // Metrics, guarded by lock
+    private long posted;
+    private long applied;
+    private long coalesced;
+    private long deferredFrames;
+    private long frames;
+
+    /** Runs {@code update} on the FX thread during the next frame, after updates posted before it. */
+    public void post(Runnable update) {
+        enqueue(new Object(), update);
+    }
+
+    /** Same as {@link #post}, so the scheduler can stand in wherever an Executor is expected. */
+    @Override
+    public void execute(Runnable update) {
+        post(update);
+    }
+
+    /**
+     * Runs {@code update} during the next frame unless another update with the same key is
+     * posted first, in which case only the latest one runs.
+     */
+    public void postLatest(Object key, Runnable update) {
+        enqueue(key, update);
+    }
+
+    private void enqueue(Object key, Runnable update) {
+        synchronized (lock) {
+            posted++;
+            if (pending.remove(key) != null) coalesced++;
+            pending.put(key, update);
+        }
+        arm();
+    }
+
+    private void arm() {
+        if (armed.compareAndSet(false, true)) {
+            if (Platform.isFxApplicationThread()) {
+                timer.start();
+            } else {
+                Platform.runLater(timer::start);
+            }
+        }
+    }
+
+    private boolean hasPending() {
+        synchronized (lock) {
+            return !pending.isEmpty();
+        }
+    }
+
+    /** Applies pending updates within the frame budget. Returns false if there was nothing to do. */
+    private boolean runFrame() {
+        long deadline = System.nanoTime() + Constants.UI_FRAME_BUDGET_MS * 1_000_000L;
+        int ran = 0;
+
+        while (true) {
+            Runnable update;
+            synchronized (lock) {
+                if (pending.isEmpty()) break;
+                if (ran > 0 && System.nanoTime() > deadline) {
+                    deferredFrames++;
+                    break;
+                }
+                Iterator<Map.Entry<Object, Runnable>> it = pending.entrySet().iterator();
+                update = it.next().getValue();
+                it.remove();
+            }
+            try {
+                update.run();
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+            ran++;
+        }
+
+        if (ran == 0) return false;
+        synchronized (lock) {
+            applied += ran;
+            frames++;
+            if (enableLogging && frames % Constants.UI_SCHEDULER_REPORT_INTERVAL == 0) {
+                System.out.println(report());
+            }
+        }
+        return true;
+    }
+
+    public String report() {
+        synchronized (lock) {
+            return String.format("UI updates - posted: %d, applied: %d, coalesced: %d, frames: %d, over budget: %d",
+                    posted, applied, coalesced, frames, deferredFrames);
+        }
+    }
+}
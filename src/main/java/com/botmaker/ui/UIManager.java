@@ -4,11 +4,11 @@ import com.botmaker.core.CodeBlock;
 import com.botmaker.events.CoreApplicationEvents;
 import com.botmaker.events.EventBus;
 import com.botmaker.lsp.CompletionContext;
+import com.botmaker.runtime.OutputSpool;
 import com.botmaker.services.CodeEditorService;
 import com.botmaker.ui.AddableBlock.BlockCategory;
 import com.botmaker.validation.DiagnosticsManager;
 import com.botmaker.validation.ErrorTranslator;
-import javafx.application.Platform;
 import javafx.geometry.Insets;
 import javafx.geometry.Orientation;
 import javafx.scene.Node;
@@ -29,15 +29,17 @@ public class UIManager {
     private final EventBus eventBus;
     private final CodeEditorService codeEditorService;
     private final DiagnosticsManager diagnosticsManager;
+    private final FrameScheduler frameScheduler;
+    private final OutputSpool outputSpool;
     private final Stage primaryStage;
 
     private VBox blocksContainer;
     private Label statusLabel;
-    private TextArea outputArea;
+    private ConsoleView consoleView;
     private ListView<Diagnostic> errorListView;
     private TabPane bottomTabPane;
     private Tab terminalTab;
-    private ScrollPane scrollPane;
+    private VirtualBlockCanvas blockCanvas;
     private MenuBarManager menuBarManager;
     private Consumer<Void> onSelectProject;
 
@@ -61,11 +63,15 @@ public class UIManager {
                      EventBus eventBus,
                      CodeEditorService codeEditorService,
                      DiagnosticsManager diagnosticsManager,
+                     FrameScheduler frameScheduler,
+                     OutputSpool outputSpool,
                      Stage primaryStage) {
         this.dragAndDropManager = dragAndDropManager;
         this.eventBus = eventBus;
         this.codeEditorService = codeEditorService;
         this.diagnosticsManager = diagnosticsManager;
+        this.frameScheduler = frameScheduler;
+        this.outputSpool = outputSpool;
         this.primaryStage = primaryStage;
 
         // Initialize the EventLogManager immediately
@@ -76,27 +82,24 @@ public class UIManager {
 
     private void setupEventHandlers() {
         eventBus.subscribe(CoreApplicationEvents.UIBlocksUpdatedEvent.class, this::handleBlocksUpdate, true);
-        eventBus.subscribe(CoreApplicationEvents.OutputAppendedEvent.class, event -> {
-            // Protect the UI Component from holding too much text
-            if (outputArea.getText().length() > 10_000) {
-                // If too long, cut the top half
-                String current = outputArea.getText();
-                outputArea.setText("[...Old Output Trimmed...]\n" + current.substring(current.length() - 5000) + event.getText());
-                outputArea.positionCaret(outputArea.getLength());
-            } else {
-                outputArea.appendText(event.getText());
-            }
-        }, true);
-
-        eventBus.subscribe(CoreApplicationEvents.OutputClearedEvent.class, event -> outputArea.clear(), true);
-        eventBus.subscribe(CoreApplicationEvents.OutputSetEvent.class, event -> outputArea.setText(event.getText()), true);
-        eventBus.subscribe(CoreApplicationEvents.StatusMessageEvent.class, event -> statusLabel.setText(event.getMessage()), true);
-
-        eventBus.subscribe(CoreApplicationEvents.DiagnosticsUpdatedEvent.class, event -> {
+        // Scrolls the paused-at block into view; stepping is bursty, so only the latest block per frame is revealed
+        eventBus.subscribe(CoreApplicationEvents.BlockHighlightEvent.class,
+                event -> frameScheduler.postLatest("reveal", () -> blockCanvas.reveal(event.getBlock())), false);
+        // Written to the spool on the publishing thread, so a clear is ordered before the output that follows it
+        eventBus.subscribe(CoreApplicationEvents.OutputAppendedEvent.class, event -> outputSpool.append(event.getText()), false);
+        eventBus.subscribe(CoreApplicationEvents.OutputClearedEvent.class, event -> outputSpool.clear(), false);
+        eventBus.subscribe(CoreApplicationEvents.OutputSetEvent.class, event -> {
+            outputSpool.clear();
+            outputSpool.append(event.getText());
+        }, false);
+        eventBus.subscribe(CoreApplicationEvents.StatusMessageEvent.class,
+                event -> frameScheduler.postLatest("status", () -> statusLabel.setText(event.getMessage())), false);
+
+        eventBus.subscribe(CoreApplicationEvents.DiagnosticsUpdatedEvent.class, event -> frameScheduler.postLatest("diagnostics", () -> {
             diagnosticsManager.processDiagnostics(event.getDiagnostics());
             updateErrors(diagnosticsManager.getDiagnostics());
             statusLabel.setText(diagnosticsManager.getErrorSummary());
-        }, true);
+        }), false);
 
 
         // State Management Handlers
@@ -109,12 +112,10 @@ public class UIManager {
         eventBus.subscribe(CoreApplicationEvents.DebugSessionPausedEvent.class, e -> updateDebugControls(true), true);
         eventBus.subscribe(CoreApplicationEvents.DebugSessionResumedEvent.class, e -> updateDebugControls(false), true);
 
-        eventBus.subscribe(CoreApplicationEvents.HistoryStateChangedEvent.class, event -> {
-            Platform.runLater(() -> {
-                if (undoButton != null) undoButton.setDisable(!event.canUndo());
-                if (redoButton != null) redoButton.setDisable(!event.canRedo());
-            });
-        }, true);
+        eventBus.subscribe(CoreApplicationEvents.HistoryStateChangedEvent.class, event -> frameScheduler.postLatest("history", () -> {
+            if (undoButton != null) undoButton.setDisable(!event.canUndo());
+            if (redoButton != null) redoButton.setDisable(!event.canRedo());
+        }), false);
     }
 
     private void setAppState(AppState state) {
@@ -156,17 +157,8 @@ public class UIManager {
     }
 
     private void handleBlocksUpdate(CoreApplicationEvents.UIBlocksUpdatedEvent event) {
-        blocksContainer.getChildren().clear();
-        if (event.getRootBlock() != null) {
-            CompletionContext context = codeEditorService.createCompletionContext();
-            Node rootNode = event.getRootBlock().getUINode(context);
-
-            rootNode.addEventHandler(BlockEvent.BreakpointToggleEvent.TOGGLE_BREAKPOINT, e -> {
-                eventBus.publish(new CoreApplicationEvents.BreakpointToggledEvent(e.getBlock(), e.isEnabled()));
-            });
-
-            blocksContainer.getChildren().add(rootNode);
-        }
+        CompletionContext context = codeEditorService.createCompletionContext();
+        blockCanvas.show(event.getRootBlock(), context, codeEditorService.getNodeToBlockMap());
     }
 
     public Scene createScene() {
@@ -174,12 +166,17 @@ public class UIManager {
         menuBarManager.setEventBus(eventBus);
         menuBarManager.setOnSelectProject(v -> { if (onSelectProject != null) onSelectProject.accept(null); });
 
-        blocksContainer = new VBox(10);
-        blocksContainer.getStyleClass().add("blocks-canvas");
+        blockCanvas = new VirtualBlockCanvas(dragAndDropManager);
+        blockCanvas.addEventHandler(BlockEvent.BreakpointToggleEvent.TOGGLE_BREAKPOINT, e -> {
+            eventBus.publish(new CoreApplicationEvents.BreakpointToggledEvent(e.getBlock(), e.isEnabled()));
+        });
+        blockCanvas.addEventHandler(BlockEvent.CollapseToggleEvent.TOGGLE_COLLAPSE, e -> {
+            eventBus.publish(new CoreApplicationEvents.BlockCollapseToggledEvent(e.getBody(), e.isCollapsed()));
+        });
 
-        scrollPane = new ScrollPane(blocksContainer);
-        scrollPane.setFitToWidth(true);
-        scrollPane.getStyleClass().add("code-scroll-pane");
+        blocksContainer = new VBox(10, blockCanvas);
+        blocksContainer.getStyleClass().add("blocks-canvas");
+        VBox.setVgrow(blockCanvas, Priority.ALWAYS);
 
         Accordion paletteAccordion = createCategorizedPalette();
         VBox paletteContainer = new VBox(paletteAccordion);
@@ -190,9 +187,7 @@ public class UIManager {
         statusLabel.setId("status-label");
 
         // Terminal Area
-        outputArea = new TextArea();
-        outputArea.setEditable(false);
-        outputArea.getStyleClass().add("console-area");
+        consoleView = new ConsoleView(outputSpool, frameScheduler);
 
         // Error List Area
         errorListView = new ListView<>();
@@ -203,7 +198,7 @@ public class UIManager {
 
         // Tabs
         bottomTabPane = new TabPane();
-        terminalTab = new Tab("Terminal", outputArea);
+        terminalTab = new Tab("Terminal", consoleView);
         terminalTab.setClosable(false);
 
         Tab errorsTab = new Tab("Errors", errorListView);
@@ -219,7 +214,7 @@ public class UIManager {
 
         SplitPane verticalSplit = new SplitPane();
         verticalSplit.setOrientation(Orientation.VERTICAL);
-        verticalSplit.getItems().addAll(scrollPane, bottomTabPane);
+        verticalSplit.getItems().addAll(blocksContainer, bottomTabPane);
         verticalSplit.setDividerPositions(0.75);
         VBox.setVgrow(verticalSplit, Priority.ALWAYS);
 
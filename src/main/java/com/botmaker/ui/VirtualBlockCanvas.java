@@ -0,0 +1,167 @@
+package com.botmaker.ui;
+
+import com.botmaker.blocks.MainBlock;
+import com.botmaker.config.Constants;
+import com.botmaker.core.BodyBlock;
+import com.botmaker.core.CodeBlock;
+import com.botmaker.core.StatementBlock;
+import com.botmaker.lsp.CompletionContext;
+import javafx.scene.Node;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.layout.Pane;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.StackPane;
+import javafx.scene.layout.VBox;
+import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jdt.core.dom.ASTVisitor;
+import org.eclipse.jdt.core.dom.Block;
+
+import java.util.*;
+
+/**
+ * Block canvas for the main method. Its top-level statements are rows of a ListView, so only
+ * the rows in the viewport get cells; rows leaving the viewport hand their cell to rows coming
+ * in. Statement UI nodes stay cached for a while after scrolling out and are released once more
+ * than {@link Constants#CANVAS_MAX_REALIZED_STATEMENTS} are kept, so memory follows the
+ * viewport instead of the program size.
+ *
+ * Only the top level is virtualized: a statement with a body (e.g. a {@code while (true)} loop
+ * holding the whole bot) is one row whose body builds all its statements. Folding such a
+ * body is what keeps its statements unbuilt.
+ */
+public class VirtualBlockCanvas extends VBox {
+
+    private final ListView<StatementBlock> statementList = new ListView<>();
+    private final BlockDragAndDropManager dragAndDropManager;
+
+    private BodyBlock mainBody;
+    private CompletionContext context;
+    private Map<ASTNode, CodeBlock> nodeToBlockMap = Map.of();
+
+    // Statements whose UI node is built, least recently shown first
+    private final LinkedHashMap<StatementBlock, Boolean> realized = new LinkedHashMap<>(16, 0.75f, true);
+    private final Set<StatementBlock> inCells = new HashSet<>();
+
+    public VirtualBlockCanvas(BlockDragAndDropManager dragAndDropManager) {
+        this.dragAndDropManager = dragAndDropManager;
+        getStyleClass().add("main-block");
+        setSpacing(5);
+
+        Label header = new Label("Main");
+        header.getStyleClass().add("main-block-header");
+
+        statementList.getStyleClass().add("block-list");
+        statementList.setFocusTraversable(false);
+        statementList.setCellFactory(list -> new StatementCell());
+
+        // The drop indicator floats above the rows instead of taking up layout space between them
+        Pane dropOverlay = new Pane();
+        StackPane listArea = new StackPane(statementList, dropOverlay);
+        VBox.setVgrow(listArea, Priority.ALWAYS);
+        dragAndDropManager.installDropTarget(this, dropOverlay);
+        BlockDecorations.installContextMenu(this);
+
+        getChildren().addAll(header, listArea);
+    }
+
+    /**
+     * Shows the statements of a new block tree. Statements reused from the previous tree keep
+     * their UI nodes; the rest are built when they scroll into view.
+     */
+    public void show(MainBlock root, CompletionContext context, Map<ASTNode, CodeBlock> nodeToBlockMap) {
+        this.context = context;
+        this.nodeToBlockMap = nodeToBlockMap;
+        this.mainBody = root != null ? root.getMainBody() : null;
+        dragAndDropManager.registerDropBody(statementList, mainBody);
+
+        List<StatementBlock> statements = mainBody != null ? mainBody.getStatements() : List.of();
+        realized.keySet().retainAll(new HashSet<>(statements));
+
+        // An empty body renders its own "drag block here" drop target; a non-empty one is laid out by the list
+        if (mainBody == null) {
+            statementList.setPlaceholder(new Label("No main method"));
+        } else if (statements.isEmpty()) {
+            statementList.setPlaceholder(mainBody.getUINode(context));
+        }
+        statementList.getItems().setAll(statements);
+    }
+
+    /**
+     * Scrolls the top-level statement containing {@code block} into view, if it is not visible,
+     * and unfolds any collapsed body around it.
+     */
+    public void reveal(CodeBlock block) {
+        if (block == null || mainBody == null || block.getAstNode() == null) return;
+        ASTNode node = block.getAstNode();
+        while (node != null && node.getParent() != mainBody.getAstNode()) {
+            if (nodeToBlockMap.get(node) instanceof BodyBlock body && body.isCollapsed()) {
+                body.setCollapsed(false);
+                fireEvent(new BlockEvent.CollapseToggleEvent(body, false));
+            }
+            node = node.getParent();
+        }
+        if (node == null || node.getLocationInParent() != Block.STATEMENTS_PROPERTY) return;
+
+        CodeBlock topLevel = nodeToBlockMap.get(node);
+        int index = topLevel instanceof StatementBlock statement ? statement.getIndexInParent() : -1;
+        if (index >= 0) statementList.scrollTo(index);
+    }
+
+    private void markRealized(StatementBlock statement) {
+        realized.put(statement, Boolean.TRUE);
+        if (realized.size() <= Constants.CANVAS_MAX_REALIZED_STATEMENTS) return;
+
+        Iterator<StatementBlock> it = realized.keySet().iterator();
+        while (it.hasNext() && realized.size() > Constants.CANVAS_MAX_REALIZED_STATEMENTS) {
+            StatementBlock eldest = it.next();
+            if (inCells.contains(eldest)) continue;
+            it.remove();
+            release(eldest);
+        }
+    }
+
+    /** Releases the UI nodes of a statement and every block inside it. */
+    private void release(StatementBlock statement) {
+        ASTNode root = statement.getAstNode();
+        if (root == null) {
+            statement.releaseUINode();
+            return;
+        }
+        root.accept(new ASTVisitor(true) {
+            @Override
+            public void preVisit(ASTNode node) {
+                CodeBlock block = nodeToBlockMap.get(node);
+                if (block != null) block.releaseUINode();
+            }
+        });
+        statement.releaseUINode();
+    }
+
+    private class StatementCell extends ListCell<StatementBlock> {
+        private StatementBlock shown;
+
+        @Override
+        protected void updateItem(StatementBlock statement, boolean empty) {
+            super.updateItem(statement, empty);
+            if (shown != null) inCells.remove(shown);
+            shown = null;
+            setText(null);
+
+            if (empty || statement == null || mainBody == null) {
+                dragAndDropManager.registerDropStatement(this, null);
+                setGraphic(null);
+                return;
+            }
+
+            // The whole row, including the space beside a narrow block, drops next to this statement
+            dragAndDropManager.registerDropStatement(this, statement);
+            setGraphic(mainBody.getStatementNode(getIndex(), context));
+
+            shown = statement;
+            inCells.add(statement);
+            markRealized(statement);
+        }
+    }
+}
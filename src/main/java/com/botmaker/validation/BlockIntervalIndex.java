@@ -0,0 +1,78 @@
+package com.botmaker.validation;
+
+import com.botmaker.core.CodeBlock;
+import org.eclipse.jdt.core.dom.ASTNode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Source ranges of the mapped AST nodes, sorted by start offset, with a link from each range to
+ * the nearest range enclosing it. AST ranges nest (they never partially overlap), so the
+ * smallest range containing an offset is found by a binary search followed by a short walk
+ * up the enclosing ranges, instead of a scan over every node.
+ */
+final class BlockIntervalIndex {
+
+    static final BlockIntervalIndex EMPTY = new BlockIntervalIndex(new ArrayList<>());
+
+    private final int[] starts;
+    private final int[] ends;
+    private final int[] parents; // index of the enclosing range, -1 for top level
+    private final CodeBlock[] blocks;
+
+    private BlockIntervalIndex(List<Map.Entry<ASTNode, CodeBlock>> entries) {
+        // Start ascending, then longest first, so an enclosing range always precedes what it contains
+        entries.sort(Comparator
+                .comparingInt((Map.Entry<ASTNode, CodeBlock> e) -> e.getKey().getStartPosition())
+                .thenComparing(e -> e.getKey().getLength(), Comparator.reverseOrder()));
+
+        int n = entries.size();
+        starts = new int[n];
+        ends = new int[n];
+        parents = new int[n];
+        blocks = new CodeBlock[n];
+
+        int[] stack = new int[n];
+        int depth = 0;
+        for (int i = 0; i < n; i++) {
+            ASTNode node = entries.get(i).getKey();
+            starts[i] = node.getStartPosition();
+            ends[i] = node.getStartPosition() + node.getLength();
+            blocks[i] = entries.get(i).getValue();
+
+            while (depth > 0 && ends[stack[depth - 1]] < ends[i]) depth--;
+            parents[i] = depth > 0 ? stack[depth - 1] : -1;
+            stack[depth++] = i;
+        }
+    }
+
+    static BlockIntervalIndex build(Map<ASTNode, CodeBlock> nodeToBlockMap) {
+        if (nodeToBlockMap == null) return EMPTY;
+        List<Map.Entry<ASTNode, CodeBlock>> entries = new ArrayList<>(nodeToBlockMap.size());
+        for (Map.Entry<ASTNode, CodeBlock> entry : nodeToBlockMap.entrySet()) {
+            if (entry.getKey().getStartPosition() >= 0) entries.add(entry);
+        }
+        return new BlockIntervalIndex(entries);
+    }
+
+    /** Block of the smallest range containing [start, end], or null. */
+    CodeBlock findSmallestContaining(int start, int end) {
+        int i = lastStartingAtOrBefore(start);
+        while (i >= 0 && ends[i] < end) {
+            i = parents[i];
+        }
+        return i >= 0 ? blocks[i] : null;
+    }
+
+    private int lastStartingAtOrBefore(int offset) {
+        // Among equal starts the smallest range comes last, which is the one we want
+        int index = Arrays.binarySearch(starts, offset);
+        if (index < 0) return -index - 2;
+        while (index + 1 < starts.length && starts[index + 1] == offset) index++;
+        return index;
+    }
+}
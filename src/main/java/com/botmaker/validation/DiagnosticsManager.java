@@ -13,11 +13,17 @@ public class DiagnosticsManager {
 
     private Map<ASTNode, CodeBlock> nodeToBlockMap;
     private String sourceCode;
-    private final Set<CodeBlock> blocksWithErrors = new HashSet<>();
     private List<Diagnostic> lastDiagnostics = new ArrayList<>();
 
-    // NEW: Track line numbers to blocks for fallback matching
-    private Map<Integer, Set<CodeBlock>> lineToBlocksMap = new HashMap<>();
+    // Reverse index of the last publishDiagnostics: block -> its diagnostics (all severities)
+    private Map<CodeBlock, List<Diagnostic>> diagnosticsByBlock = new HashMap<>();
+    // Error text each block should show, and the text actually shown on its UI node
+    private Map<CodeBlock, String> errorMessages = new HashMap<>();
+    private final Map<CodeBlock, String> shownErrors = new HashMap<>();
+
+    // Offset index over block ranges and line starts, rebuilt once per parse
+    private BlockIntervalIndex blockIndex = BlockIntervalIndex.EMPTY;
+    private LineIndex lineIndex = new LineIndex("");
 
     public List<Diagnostic> getDiagnostics() {
         return lastDiagnostics;
@@ -34,75 +40,96 @@ public class DiagnosticsManager {
     }
 
     public void updateSource(Map<ASTNode, CodeBlock> nodeToBlockMap, String sourceCode) {
-        this.nodeToBlockMap = nodeToBlockMap;
-        this.sourceCode = sourceCode;
-
-        // Build line-to-block mapping for fallback
-        buildLineToBlockMap();
+        applySource(prepareSource(nodeToBlockMap, sourceCode));
     }
 
     /**
-     * Builds a map from line numbers to blocks for fallback matching
-     * when AST node matching fails.
+     * Precomputes the lookup structures for a new source version. Touches no shared state,
+     * so it can run on the parse worker; the result is installed with {@link #applySource}.
      */
-    private void buildLineToBlockMap() {
-        lineToBlocksMap.clear();
-
-        if (nodeToBlockMap == null || sourceCode == null) {
-            return;
-        }
+    public SourceSnapshot prepareSource(Map<ASTNode, CodeBlock> nodeToBlockMap, String sourceCode) {
+        return new SourceSnapshot(nodeToBlockMap, sourceCode,
+                BlockIntervalIndex.build(nodeToBlockMap),
+                new LineIndex(sourceCode != null ? sourceCode : ""));
+    }
 
-        for (Map.Entry<ASTNode, CodeBlock> entry : nodeToBlockMap.entrySet()) {
-            ASTNode node = entry.getKey();
-            CodeBlock block = entry.getValue();
+    public void applySource(SourceSnapshot snapshot) {
+        this.nodeToBlockMap = snapshot.nodeToBlockMap;
+        this.sourceCode = snapshot.sourceCode;
+        this.blockIndex = snapshot.blockIndex;
+        this.lineIndex = snapshot.lineIndex;
+        forgetReplacedBlocks();
+    }
 
-            // Calculate which lines this node spans
-            int startLine = getLineNumber(node.getStartPosition());
-            int endLine = getLineNumber(node.getStartPosition() + node.getLength());
+    /**
+     * Drops error state of blocks that are not part of the installed tree. Reused blocks keep
+     * theirs (and their decoration) until the next diagnostics; discarded blocks are not held on to.
+     * Reused blocks are already bound to the new tree's nodes here.
+     */
+    private void forgetReplacedBlocks() {
+        shownErrors.keySet().removeIf(block -> !isInstalled(block));
+        errorMessages.keySet().removeIf(block -> !isInstalled(block));
+        diagnosticsByBlock.keySet().removeIf(block -> !isInstalled(block));
+    }
 
-            // Add block to all lines it spans
-            for (int line = startLine; line <= endLine; line++) {
-                lineToBlocksMap.computeIfAbsent(line, k -> new HashSet<>()).add(block);
-            }
-        }
+    private boolean isInstalled(CodeBlock block) {
+        return nodeToBlockMap != null && nodeToBlockMap.get(block.getAstNode()) == block;
     }
 
     public void processDiagnostics(List<Diagnostic> diagnostics) {
         this.lastDiagnostics = diagnostics;
 
-        // Clear previous errors
-        for (CodeBlock block : blocksWithErrors) {
-            block.clearError();
-        }
-        blocksWithErrors.clear();
+        Map<CodeBlock, List<Diagnostic>> byBlock = new HashMap<>();
+        Map<CodeBlock, String> messages = new HashMap<>();
+
+        if (nodeToBlockMap != null) {
+            for (Diagnostic diagnostic : diagnostics) {
+                Optional<CodeBlock> blockOpt = findBlockForDiagnostic(diagnostic);
+                if (blockOpt.isEmpty()) {
+                    // Log unmapped diagnostics for debugging
+                    System.err.println("Warning: Could not map diagnostic to block: " +
+                            diagnostic.getMessage() + " at line " +
+                            (diagnostic.getRange().getStart().getLine() + 1));
+                    continue;
+                }
+                CodeBlock block = blockOpt.get();
+                byBlock.computeIfAbsent(block, k -> new ArrayList<>()).add(diagnostic);
 
-        if (nodeToBlockMap == null) return;
+                // Only show errors, not warnings (unless you want warnings too)
+                if (diagnostic.getSeverity() != DiagnosticSeverity.Error) continue;
 
-        // Process new diagnostics
-        for (Diagnostic diagnostic : diagnostics) {
-            // Only show errors, not warnings (unless you want warnings too)
-            if (diagnostic.getSeverity() != DiagnosticSeverity.Error) {
-                continue;
+                // Use translated error message
+                String text = ErrorTranslator.getShortSummary(diagnostic) + "\n" + ErrorTranslator.getSuggestion(diagnostic);
+                messages.merge(block, text, (existing, added) -> existing.contains(added) ? existing : existing + "\n\n" + added);
             }
+        }
 
-            Optional<CodeBlock> blockOpt = findBlockForDiagnostic(diagnostic);
-
-            if (blockOpt.isPresent()) {
-                CodeBlock block = blockOpt.get();
+        this.diagnosticsByBlock = byBlock;
+        this.errorMessages = messages;
+        refreshErrorDecorations();
+    }
 
-                // Use translated error message
-                String userFriendlyMessage = ErrorTranslator.getShortSummary(diagnostic);
-                String suggestion = ErrorTranslator.getSuggestion(diagnostic);
-
-                block.setError(userFriendlyMessage + "\n" + suggestion);
-                blocksWithErrors.add(block);
-            } else {
-                // Log unmapped diagnostics for debugging
-                System.err.println("Warning: Could not map diagnostic to block: " +
-                        diagnostic.getMessage() + " at line " +
-                        (diagnostic.getRange().getStart().getLine() + 1));
+    /**
+     * Brings block error decorations in line with the last diagnostics, touching only blocks
+     * whose error state changed. A block without a UI node keeps the message and shows it
+     * once the node is built, so it counts as shown here.
+     */
+    public void refreshErrorDecorations() {
+        Iterator<Map.Entry<CodeBlock, String>> it = shownErrors.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<CodeBlock, String> shown = it.next();
+            if (!errorMessages.containsKey(shown.getKey())) {
+                shown.getKey().clearError();
+                it.remove();
             }
         }
+
+        for (Map.Entry<CodeBlock, String> entry : errorMessages.entrySet()) {
+            CodeBlock block = entry.getKey();
+            if (entry.getValue().equals(shownErrors.get(block))) continue;
+            block.setError(entry.getValue());
+            shownErrors.put(block, entry.getValue());
+        }
     }
 
     /**
@@ -127,138 +154,56 @@ public class DiagnosticsManager {
     }
 
     /**
-     * Strategy 1: Find block by matching AST node ranges
+     * Strategy 1: Smallest block whose range contains the whole diagnostic range
      */
     private Optional<CodeBlock> findBlockByASTNode(Diagnostic diagnostic) {
-        int startOffset = getOffsetFromPosition(diagnostic.getRange().getStart());
-        int endOffset = getOffsetFromPosition(diagnostic.getRange().getEnd());
-
-        // Find the most specific (smallest) block that contains the diagnostic range
-        ASTNode bestNode = null;
-        int bestLength = Integer.MAX_VALUE;
-
-        for (ASTNode node : nodeToBlockMap.keySet()) {
-            int nodeStart = node.getStartPosition();
-            int nodeEnd = nodeStart + node.getLength();
-
-            // Check if node contains the diagnostic range
-            if (nodeStart <= startOffset && nodeEnd >= endOffset) {
-                int nodeLength = node.getLength();
-
-                // Prefer the smallest containing node
-                if (nodeLength < bestLength) {
-                    bestNode = node;
-                    bestLength = nodeLength;
-                }
-            }
-        }
-
-        return Optional.ofNullable(bestNode).map(nodeToBlockMap::get);
+        int startOffset = lineIndex.getOffset(diagnostic.getRange().getStart());
+        int endOffset = lineIndex.getOffset(diagnostic.getRange().getEnd());
+        return Optional.ofNullable(blockIndex.findSmallestContaining(startOffset, endOffset));
     }
 
     /**
-     * Strategy 2: Find block by line number (fallback)
+     * Strategy 2: Smallest block spanning the diagnostic's line (fallback)
      */
     private Optional<CodeBlock> findBlockByLine(Diagnostic diagnostic) {
+        if (sourceCode == null) return Optional.empty();
         int line = diagnostic.getRange().getStart().getLine();
-
-        Set<CodeBlock> blocksOnLine = lineToBlocksMap.get(line);
-        if (blocksOnLine == null || blocksOnLine.isEmpty()) {
-            return Optional.empty();
-        }
-
-        // If multiple blocks on same line, prefer the first one
-        // (Could be improved with more sophisticated heuristics)
-        return blocksOnLine.stream().findFirst();
+        int start = lineIndex.getLineStart(line);
+        int end = lineIndex.getLineStart(line + 1);
+        // Block ranges leave out indentation and the line break, so only the line's text must be inside
+        while (start < end && Character.isWhitespace(sourceCode.charAt(start))) start++;
+        while (end > start && Character.isWhitespace(sourceCode.charAt(end - 1))) end--;
+        return Optional.ofNullable(blockIndex.findSmallestContaining(start, end));
     }
 
     /**
-     * Strategy 3: Find block by searching parent nodes
+     * Strategy 3: Smallest block containing the diagnostic's start
      */
     private Optional<CodeBlock> findBlockByParentNode(Diagnostic diagnostic) {
-        int startOffset = getOffsetFromPosition(diagnostic.getRange().getStart());
-
-        // Find any node that contains the start position
-        for (ASTNode node : nodeToBlockMap.keySet()) {
-            int nodeStart = node.getStartPosition();
-            int nodeEnd = nodeStart + node.getLength();
-
-            if (nodeStart <= startOffset && nodeEnd >= startOffset) {
-                return Optional.of(nodeToBlockMap.get(node));
-            }
-        }
-
-        return Optional.empty();
-    }
-
-    /**
-     * Converts LSP position to source code offset
-     */
-    private int getOffsetFromPosition(org.eclipse.lsp4j.Position pos) {
-        int line = pos.getLine();
-        int character = pos.getCharacter();
-        int offset = 0;
-        int currentLine = 0;
-
-        if (sourceCode == null) return 0;
-
-        while (currentLine < line && offset < sourceCode.length()) {
-            if (sourceCode.charAt(offset) == '\n') {
-                currentLine++;
-            }
-            offset++;
-        }
-
-        return offset + character;
-    }
-
-    /**
-     * Gets line number from character offset
-     */
-    private int getLineNumber(int offset) {
-        if (sourceCode == null || offset < 0) return 0;
-
-        int line = 0;
-        for (int i = 0; i < Math.min(offset, sourceCode.length()); i++) {
-            if (sourceCode.charAt(i) == '\n') {
-                line++;
-            }
-        }
-        return line;
+        int startOffset = lineIndex.getOffset(diagnostic.getRange().getStart());
+        return Optional.ofNullable(blockIndex.findSmallestContaining(startOffset, startOffset));
     }
 
     /**
      * Get all blocks that have errors (useful for UI highlighting)
      */
     public Set<CodeBlock> getBlocksWithErrors() {
-        return Collections.unmodifiableSet(blocksWithErrors);
+        return Collections.unmodifiableSet(errorMessages.keySet());
     }
 
     /**
      * Check if a specific block has errors
      */
     public boolean hasError(CodeBlock block) {
-        return blocksWithErrors.contains(block);
+        return errorMessages.containsKey(block);
     }
 
     /**
      * Get diagnostics for a specific block
      */
     public List<Diagnostic> getDiagnosticsForBlock(CodeBlock block) {
-        if (lastDiagnostics == null || nodeToBlockMap == null) {
-            return Collections.emptyList();
-        }
-
-        List<Diagnostic> blockDiagnostics = new ArrayList<>();
-
-        for (Diagnostic diagnostic : lastDiagnostics) {
-            Optional<CodeBlock> diagBlock = findBlockForDiagnostic(diagnostic);
-            if (diagBlock.isPresent() && diagBlock.get() == block) {
-                blockDiagnostics.add(diagnostic);
-            }
-        }
-
-        return blockDiagnostics;
+        List<Diagnostic> blockDiagnostics = diagnosticsByBlock.get(block);
+        return blockDiagnostics != null ? Collections.unmodifiableList(blockDiagnostics) : Collections.emptyList();
     }
 
     /**
@@ -288,4 +233,22 @@ public class DiagnosticsManager {
 
         return summary.toString();
     }
+
+    /**
+     * Lookup structures for one source version, built off the FX thread.
+     */
+    public static final class SourceSnapshot {
+        private final Map<ASTNode, CodeBlock> nodeToBlockMap;
+        private final String sourceCode;
+        private final BlockIntervalIndex blockIndex;
+        private final LineIndex lineIndex;
+
+        private SourceSnapshot(Map<ASTNode, CodeBlock> nodeToBlockMap, String sourceCode,
+                               BlockIntervalIndex blockIndex, LineIndex lineIndex) {
+            this.nodeToBlockMap = nodeToBlockMap;
+            this.sourceCode = sourceCode;
+            this.blockIndex = blockIndex;
+            this.lineIndex = lineIndex;
+        }
+    }
 }
\ No newline at end of file
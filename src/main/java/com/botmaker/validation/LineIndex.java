@@ -0,0 +1,101 @@
+package com.botmaker.validation;
+
+import org.eclipse.lsp4j.Position;
+
+import java.util.Arrays;
+
+/**
+ * Start offset of every line of a source text, so line/offset conversions are a lookup
+ * or a binary search instead of a walk from the start of the file.
+ */
+public final class LineIndex {
+
+    private final int[] lineStarts;
+    private final int length;
+
+    public LineIndex(String text) {
+        int[] starts = new int[16];
+        int count = 1; // line 0 starts at 0
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\n' || (c == '\r' && (i + 1 >= text.length() || text.charAt(i + 1) != '\n'))) {
+                if (count == starts.length) starts = Arrays.copyOf(starts, count * 2);
+                starts[count++] = i + 1;
+            }
+        }
+        this.lineStarts = Arrays.copyOf(starts, count);
+        this.length = text.length();
+    }
+
+    private LineIndex(int[] lineStarts, int length) {
+        this.lineStarts = lineStarts;
+        this.length = length;
+    }
+
+    /**
+     * Index of the text after replacing [start, end) with {@code replacement}, without rescanning
+     * it: line starts before the edit are kept, those after it shifted, and those inside it taken
+     * from the replacement. {@code charBefore} and {@code charAfter} are the characters next to
+     * the edit (0 at either end of the text), needed because a \r and \n meeting there form a
+     * single line break.
+     */
+    public LineIndex replace(int start, int end, String replacement, char charBefore, char charAfter) {
+        int shift = replacement.length() - (end - start);
+        int newEnd = start + replacement.length();
+        // Starts in [start, end] depend on replaced characters; keep line 0 whatever happens
+        int keepBefore = Math.max(1, firstStartAtOrAfter(start));
+        int resumeAt = firstStartAtOrAfter(end + 1);
+
+        int[] starts = new int[keepBefore + (replacement.length() + 1) + (lineStarts.length - resumeAt)];
+        System.arraycopy(lineStarts, 0, starts, 0, keepBefore);
+        int count = keepBefore;
+        for (int s = Math.max(1, start); s <= newEnd; s++) {
+            char previous = s - 1 < start ? charBefore : replacement.charAt(s - 1 - start);
+            char next = s < newEnd ? replacement.charAt(s - start) : charAfter;
+            if (previous == '\n' || (previous == '\r' && next != '\n')) {
+                starts[count++] = s;
+            }
+        }
+        for (int i = resumeAt; i < lineStarts.length; i++) {
+            starts[count++] = lineStarts[i] + shift;
+        }
+        return new LineIndex(Arrays.copyOf(starts, count), length + shift);
+    }
+
+    private int firstStartAtOrAfter(int offset) {
+        int index = Arrays.binarySearch(lineStarts, offset);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    public int getLineCount() {
+        return lineStarts.length;
+    }
+
+    public int getLineStart(int line) {
+        if (line <= 0) return 0;
+        if (line >= lineStarts.length) return length;
+        return lineStarts[line];
+    }
+
+    /** Zero-based line containing the offset. */
+    public int getLine(int offset) {
+        if (offset <= 0) return 0;
+        int index = Arrays.binarySearch(lineStarts, Math.min(offset, length));
+        return index >= 0 ? index : -index - 2;
+    }
+
+    /** LSP position of an offset: line and UTF-16 column, which is what Java strings count. */
+    public Position getPosition(int offset) {
+        int line = getLine(offset);
+        return new Position(line, offset - getLineStart(line));
+    }
+
+    /** Source offset of an LSP position, clamped to the text. */
+    public int getOffset(Position position) {
+        return Math.min(getLineStart(position.getLine()) + position.getCharacter(), length);
+    }
+}